@@ -62,6 +62,13 @@ class LogStash::Filters::Date < LogStash::Filters::Base
   # * `UNIX` - will parse *float or int* value expressing unix time in seconds since epoch like 1326149001.132 as well as 1326149001
   # * `UNIX_MS` - will parse **int** value expressing unix time in milliseconds since epoch like 1366125117000
   # * `TAI64N` - will parse tai64n time values
+  # * `TAI64N_TAI` - will parse tai64n time values written from a clock that counts
+  #   leap seconds, subtracting them with a built-in table instead of the constant
+  #   10 seconds `TAI64N` assumes (the convention of daemontools' `tai64n`)
+  # * `AUTO` - will detect the format of each value among ISO8601, Unix epochs in
+  #   seconds or milliseconds, TAI64N and common log layouts such as
+  #   `dd/MMM/yyyy:HH:mm:ss Z` and `MMM dd HH:mm:ss`, each filter remembering the format found
+  #   for every value with the same layout of digits, letters and separators
   #
   # For example, if you have a field `logdate`, with a value that looks like
   # `Aug 13 2010 00:03:44`, you would use this configuration:
@@ -146,15 +153,91 @@ class LogStash::Filters::Date < LogStash::Filters::Base
   # default to updating the `@timestamp` field of the event.
   config :target, :validate => :string, :default => LogStash::Event::TIMESTAMP
 
+  # Precision of the timestamp stored into `target`. With `nanosecond`, the
+  # digits after the milliseconds are kept too, on Logstash versions whose
+  # timestamps can hold them; the others keep milliseconds.
+  config :target_precision, :validate => ["millisecond", "nanosecond"], :default => "millisecond"
+
   # Store the matching timestamp into the given target field with nano second precision. 
   config :nano_sec_target, :validate => :string
 
+  # How the timestamp is stored in `nano_sec_target`: an ISO8601 string in UTC
+  # with nine digits of fraction, or with `UNIX_NS` the number of nanoseconds
+  # since the epoch.
+  config :nano_sec_format, :validate => ["ISO8601", "UNIX_NS"], :default => "ISO8601"
+
+  # Which element of an array source field sets the timestamp: the `first`
+  # or `last` element matching a format, or the earliest (`min`) or latest
+  # (`max`) time among the elements that match. The event is only tagged
+  # with `tag_on_failure` when no element matches.
+  config :array_value, :validate => ["first", "last", "min", "max"], :default => "first"
+
+  # Also store the matching timestamp as a number of milliseconds since the
+  # epoch into the given field.
+  config :epoch_millis_target, :validate => :string
+
+  # Also store the day of the matching timestamp, formatted with `day_format`
+  # in `day_timezone`, into the given field, for example to build an index
+  # name without a `ruby` filter.
+  config :day_target, :validate => :string
+
+  # Pattern of the day written to `day_target`. It may only have date fields.
+  config :day_format, :validate => :string, :default => "yyyy.MM.dd"
+
+  # Time zone of the day written to `day_target`.
+  config :day_timezone, :validate => :string, :default => "UTC"
+
+  # Also store the matching timestamp truncated to a multiple of
+  # `bucket_size` seconds since the epoch, as a timestamp, into the given
+  # field. With the default size this is the start of the hour.
+  config :bucket_target, :validate => :string
+
+  # Size, in seconds, of the buckets written to `bucket_target`.
+  config :bucket_size, :validate => :number, :default => 3600
+
+  # Log a warning with a value that no format could parse, and the reason
+  # each format gave, at most once per this many seconds. Set to 0 to never
+  # log these warnings.
+  config :failure_log_interval, :validate => :number, :default => 0
+
   # Append values to the `tags` field when there has been no
   # successful match
   config :tag_on_failure, :validate => :array, :default => ["_dateparsefailure"]
 
+  # Try the match formats that succeed most often first, instead of always
+  # going through them in the configured order. The order is revised about
+  # once per second. A format is never tried before an earlier configured one
+  # that could match the same value, so the result is the same as with the
+  # configured order.
+  config :adaptive_match_order, :validate => :boolean, :default => false
+
+  # Number of recently parsed values each pipeline worker remembers per match
+  # format, so events repeating a timestamp are not parsed again. Values only
+  # differing from the previous one in their fraction of a second reuse the
+  # rest of its result. Set to 0 to disable.
+  config :parse_cache_size, :validate => :number, :default => 1
+
+  # Parse batches of at least this many events on several threads, from a
+  # pool shared by the whole Logstash process. The parsed dates are still
+  # written to the events by the pipeline worker. Set to 0 (the default) to
+  # always parse on the pipeline worker.
+  config :parallel_parse_threshold, :validate => :number, :default => 0
+
+  # Parse this many rounds of values with each match format when the plugin is
+  # registered, so the first batches do not pay for loading time zone rules,
+  # initializing formatters and compiling the parsers. Each round parses the
+  # current time written in each format, and the `warm_up_samples`. Set to 0
+  # to skip the warm-up.
+  config :warm_up_rounds, :validate => :number, :default => 0
+
+  # Values like those of the source field, also parsed at every warm-up round.
+  config :warm_up_samples, :validate => :array, :default => []
+
   def register
-    # nothing
+    if @warm_up_rounds > 0
+      parsed = @datefilter.warm_up(@warm_up_samples, @warm_up_rounds)
+      @logger.debug("Date filter warmed up", :rounds => @warm_up_rounds, :parsed => parsed)
+    end
   end
 
   def initialize(config = {})
@@ -174,15 +257,27 @@ class LogStash::Filters::Date < LogStash::Filters::Base
 
     source = @match.first
 
-    success_block = Proc.new do |event|
-      filter_matched(event)
-      metric.increment(:matches)
-    end
-    failure_block = Proc.new do |event|
-      metric.increment(:failures)
+    # Called once per batch, with the events that matched and the number of
+    # events that did not.
+    batch_block = Proc.new do |matched, failures|
+      matched.each { |event| filter_matched(event) }
+      metric.increment(:matches, matched.size) unless matched.empty?
+      metric.increment(:failures, failures) if failures > 0
     end
 
-    @datefilter = org.logstash.filters.DateFilter.new(source, @target, @nano_sec_target, @tag_on_failure, success_block, failure_block)
+    @datefilter = org.logstash.filters.DateFilter.new(source, @target, @nano_sec_target, @tag_on_failure, batch_block)
+    @datefilter.set_adaptive_ordering(@adaptive_match_order)
+    @datefilter.set_parse_cache_size(@parse_cache_size)
+    @datefilter.set_parallel_threshold(@parallel_parse_threshold)
+    @datefilter.set_nano_second_format(@nano_sec_format)
+    @datefilter.set_array_value(@array_value)
+    @datefilter.set_failure_log_interval(@failure_log_interval)
+    @datefilter.add_epoch_millis_field(@epoch_millis_target) if @epoch_millis_target
+    @datefilter.add_day_field(@day_target, @day_format, @day_timezone) if @day_target
+    @datefilter.add_bucket_field(@bucket_target, @bucket_size) if @bucket_target
+    unless @datefilter.set_nanosecond_timestamps(@target_precision == "nanosecond")
+      @logger.warn("This version of Logstash only stores milliseconds in timestamps, target_precision => nanosecond is ignored")
+    end
 
     @match[1..-1].map do |format|
       @datefilter.accept_filter_config(format, @locale, @timezone)
@@ -197,10 +292,46 @@ class LogStash::Filters::Date < LogStash::Filters::Base
   end # def initialize
 
   def multi_filter(events)
-    @datefilter.receive(events)
+    result = @datefilter.receive(events)
+    report_format_metrics
+    result
   end
 
   def filter(event)
     multi_filter([event]).first
   end
+
+  private
+
+  METRICS_REPORT_INTERVAL_NANOS = 1_000_000_000
+
+  # Copies the per format counters, the parse latency percentiles and the
+  # last sampled failure kept by the Java filter to the plugin metrics, at
+  # most once per second.
+  def report_format_metrics
+    now = java.lang.System.nano_time
+    return if @last_metrics_report && now - @last_metrics_report < METRICS_REPORT_INTERVAL_NANOS
+    @last_metrics_report = now
+
+    @datefilter.format_metrics.each do |format_metrics|
+      namespace = metric.namespace(:formats).namespace(format_metrics.format.to_sym)
+      namespace.gauge(:attempts, format_metrics.attempts)
+      namespace.gauge(:matches, format_metrics.successes)
+      namespace.gauge(:failures, format_metrics.failures)
+    end
+    latency = @datefilter.latency
+    namespace = metric.namespace(:parse_latency_nanos)
+    namespace.gauge(:samples, latency.count)
+    [50, 90, 99, 99.9].each do |percentile|
+      namespace.gauge(:"p#{percentile}", latency.get_value_at_percentile(percentile))
+    end
+    last_failure = @datefilter.failure_samples.samples.first
+    if last_failure
+      namespace = metric.namespace(:last_failure)
+      namespace.gauge(:value, last_failure.value)
+      last_failure.reasons.each do |format, reason|
+        namespace.namespace(:formats).gauge(format.to_sym, reason)
+      end
+    end
+  end
 end
@@ -709,6 +709,76 @@ RUBY_ENGINE == "jruby" and describe LogStash::Filters::Date do
     end
   end
 
+  describe "array values" do
+
+    config <<-'CONFIG'
+      filter {
+        date {
+          match => [ "timestamp", "ISO8601" ]
+          array_value => "max"
+        }
+      }
+    CONFIG
+
+    sample("timestamp" => [ "2013-03-26T02:33:56.000Z", "not a date", "2014-01-01T00:00:00.000Z" ]) do
+      insist { subject.get("@timestamp").time } == Time.iso8601("2014-01-01T00:00:00.000Z")
+      insist { subject.get("tags") } != ["_dateparsefailure"]
+    end
+  end
+
+  describe "derived fields" do
+
+    config <<-'CONFIG'
+      filter {
+        date {
+          match => [ "timestamp", "ISO8601" ]
+          epoch_millis_target => "millis"
+          day_target => "[@metadata][index_day]"
+          day_timezone => "America/New_York"
+          bucket_target => "hour"
+        }
+      }
+    CONFIG
+
+    sample("timestamp" => "2013-03-26T02:33:56.123Z") do
+      insist { subject.get("millis") } == 1364265236123
+      insist { subject.get("[@metadata][index_day]") } == "2013.03.25"
+      insist { subject.get("hour").time } == Time.iso8601("2013-03-26T02:00:00.000Z")
+    end
+  end
+
+  describe "failure samples" do
+    subject { described_class.new("match" => [ "message", "UNIX", "yyyy-MM-dd HH:mm:ss" ], "failure_log_interval" => 60) }
+
+    let(:event) { ::LogStash::Event.new("message" => "2013-13-26 02:33:56") }
+
+    it "keeps the failing value and the reason of each format" do
+      subject.filter(event)
+      samples = subject.instance_variable_get(:@datefilter).failure_samples.samples
+      insist { samples.size } == 1
+      insist { samples.first.value } == "2013-13-26 02:33:56"
+      insist { samples.first.reasons.keys.to_a } == ["UNIX", "yyyy-MM-dd HH:mm:ss"]
+      insist { event.get("tags") } == ["_dateparsefailure"]
+    end
+  end
+
+  describe "warm-up" do
+
+    config <<-'CONFIG'
+      filter {
+        date {
+          match => [ "timestamp", "dd/MMM/yyyy:HH:mm:ss Z", "ISO8601" ]
+          warm_up_rounds => 10
+          warm_up_samples => [ "26/Mar/2013:02:33:56 +0000" ]
+        }
+      }
+    CONFIG
+
+    sample("timestamp" => "26/Mar/2013:02:33:56 +0000") do
+      insist { subject.get("@timestamp").time } == Time.iso8601("2013-03-26T02:33:56.000Z")
+    end
+  end
+
   describe "Support fallback to english for non-english default locale" do
     #Override default locale with non-english
     config <<-CONFIG
@@ -806,7 +876,7 @@ RUBY_ENGINE == "jruby" and describe LogStash::Filters::Date do
     context "when date parses a date correctly" do
       let(:event) { ::LogStash::Event.new("message" => "1999") }
       it "increases the matches counter" do
-        expect(subject.metric).to receive(:increment).with(:matches)
+        expect(subject.metric).to receive(:increment).with(:matches, 1)
         subject.filter(event)
       end
     end
@@ -814,10 +884,21 @@ RUBY_ENGINE == "jruby" and describe LogStash::Filters::Date do
     context "when date parses a date correctly" do
       let(:event) { ::LogStash::Event.new("message" => "not really a year") }
       it "increases the matches counter" do
-        expect(subject.metric).to receive(:increment).with(:failures)
+        expect(subject.metric).to receive(:increment).with(:failures, 1)
         subject.filter(event)
       end
     end
+
+    context "when a batch has matches and failures" do
+      let(:events) do
+        ["1999", "not really a year", "2001"].map { |message| ::LogStash::Event.new("message" => message) }
+      end
+      it "increases the counters once per batch" do
+        expect(subject.metric).to receive(:increment).with(:matches, 2).once
+        expect(subject.metric).to receive(:increment).with(:failures, 1).once
+        subject.multi_filter(events)
+      end
+    end
   end
 
   describe "cancelled events" do
@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import org.logstash.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * DateFilter.executeParsers with several match formats, the value matching
+ * the first, middle, or last of them, or none; and parseBatch on batches of
+ * 125 such events.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class ExecuteParsersBenchmark {
+    private static final String[] FORMATS = { "yyyy-MM-dd HH:mm:ss",
+            "dd/MMM/yyyy:HH:mm:ss Z", "UNIX", "TAI64N", "ISO8601" };
+
+    @Param({ "1", "3", "5" })
+    public int formats;
+
+    @Param({ "first", "middle", "last", "none" })
+    public String hit;
+
+    @Param({ "false", "true" })
+    public boolean adaptiveOrdering;
+
+    @Param({ "0", "1" })
+    public int parseCacheSize;
+
+    private DateFilter subject;
+    private Event event;
+    private Event[] batch;
+    private String[] values;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        subject = new DateFilter("[message]", "[date]", null,
+                Collections.singletonList("_dateparsefailure"));
+        subject.setAdaptiveOrdering(adaptiveOrdering);
+        subject.setParseCacheSize(parseCacheSize);
+        for (String format : Arrays.copyOf(FORMATS, formats)) {
+            subject.acceptFilterConfig(format, "en", "UTC");
+        }
+        switch (hit) {
+        case "first":
+            values = Samples.values(FORMATS[0], 64);
+            break;
+        case "middle":
+            values = Samples.values(FORMATS[formats / 2], 64);
+            break;
+        case "last":
+            values = Samples.values(FORMATS[formats - 1], 64);
+            break;
+        default:
+            values = new String[64];
+            Arrays.fill(values, "not a date");
+        }
+        event = new Event();
+        batch = new Event[125];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Event();
+            batch[i].setField("[message]", values[i & 63]);
+        }
+    }
+
+    @Benchmark
+    public ParseExecutionResult executeParsers() {
+        event.setField("[message]", values[next++ & 63]);
+        return subject.executeParsers(event);
+    }
+
+    @Benchmark
+    public ParsedBatch parseBatch() {
+        return subject.parseBatch(batch);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import org.logstash.Event;
+import org.logstash.filters.parser.TimestampParser;
+import org.logstash.filters.parser.TimestampParserFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Cost of each InputHandler around the same parser: a fixed timezone, one
+ * read from a field, and one that needs sprintf.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class InputHandlerBenchmark {
+    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss.SSS";
+
+    @Param({ "UTC", "%{tz}", "Europe/%{city}" })
+    public String timezone;
+
+    @Param({ "0", "1" })
+    public int parseCacheSize;
+
+    private InputHandler subject;
+    private Event event;
+    private String[] values;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        ParseCache cache = parseCacheSize > 0
+                ? new ParseCache(parseCacheSize, new ParseCache.Stats())
+                : null;
+        TimestampParser parser = TimestampParserFactory.makeParser(PATTERN,
+                "en", timezone);
+        if (timezone.contains("%{")) {
+            subject = new DynamicTzInputHandler(parser, timezone, cache);
+        } else {
+            subject = new StringInputHandler(parser, cache);
+        }
+        event = new Event();
+        event.setField("tz", "Europe/Paris");
+        event.setField("city", "Paris");
+        values = Samples.values(PATTERN, 64);
+    }
+
+    @Benchmark
+    public Instant handle() throws IOException {
+        return subject.handle(values[next++ & 63], event);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Values in each of the formats the benchmarks parse.
+ */
+public final class Samples {
+    private static final Instant START = Instant
+            .parse("2017-05-17T15:46:08.123456789Z");
+
+    private Samples() {
+    }
+
+    /**
+     * {@code count} distinct values in the given format, a second and a
+     * millisecond apart.
+     */
+    public static String[] values(String format, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = value(format, START.plusMillis(i * 1001L));
+        }
+        return values;
+    }
+
+    private static String value(String format, Instant instant) {
+        switch (format) {
+        case "ISO8601":
+            return instant.toString();
+        case "UNIX":
+            return String.format("%d.%03d", instant.getEpochSecond(),
+                    instant.getNano() / 1000000);
+        case "UNIX_MS":
+            return Long.toString(instant.toEpochMilli());
+        case "TAI64N":
+            return String.format("@%016x%08x",
+                    (1L << 62) + instant.getEpochSecond() + 10,
+                    instant.getNano());
+        default:
+            return DateTimeFormatter.ofPattern(format, Locale.ENGLISH)
+                    .withZone(ZoneOffset.UTC).format(instant);
+        }
+    }
+}
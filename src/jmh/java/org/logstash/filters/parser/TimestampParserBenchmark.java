@@ -0,0 +1,102 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import org.logstash.filters.Samples;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Throughput of each TimestampParser on matching values. Parameters are
+ * "Implementation" or "Implementation:pattern".
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class TimestampParserBenchmark {
+    @Param({ "CasualISO8601Parser", "UnixEpochParser",
+            "UnixMillisEpochParser", "TAI64NParser",
+            "Jsr310Parser:yyyy-MM-dd HH:mm:ss.SSS",
+            "Jsr310Parser:dd/MMM/yyyy:HH:mm:ss Z",
+            "Jsr310Parser:MMM dd HH:mm:ss",
+            "Jsr310Parser:EEE, dd MMM yyyy HH:mm:ss Z",
+            "CompiledPatternParser:yyyy-MM-dd HH:mm:ss.SSS",
+            "CompiledPatternParser:dd/MMM/yyyy:HH:mm:ss Z",
+            "CompiledPatternParser:MMM dd HH:mm:ss" })
+    public String parser;
+
+    private TimestampParser subject;
+    private String[] values;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        int colon = parser.indexOf(':');
+        String implementation = colon < 0 ? parser : parser.substring(0, colon);
+        String pattern = colon < 0 ? null : parser.substring(colon + 1);
+        switch (implementation) {
+        case "CasualISO8601Parser":
+            subject = new CasualISO8601Parser("UTC");
+            values = Samples.values("ISO8601", 64);
+            return;
+        case "UnixEpochParser":
+            subject = new UnixEpochParser();
+            values = Samples.values("UNIX", 64);
+            return;
+        case "UnixMillisEpochParser":
+            subject = new UnixMillisEpochParser();
+            values = Samples.values("UNIX_MS", 64);
+            return;
+        case "TAI64NParser":
+            subject = new TAI64NParser();
+            values = Samples.values("TAI64N", 64);
+            return;
+        case "Jsr310Parser":
+            subject = new Jsr310Parser(pattern, Locale.ENGLISH, "UTC");
+            break;
+        case "CompiledPatternParser":
+            subject = CompiledPatternParser.compile(pattern, Locale.ENGLISH,
+                    "UTC");
+            break;
+        default:
+            throw new IllegalArgumentException(parser);
+        }
+        if (subject == null) {
+            throw new IllegalArgumentException(pattern + " does not compile");
+        }
+        values = Samples.values(pattern, 64);
+    }
+
+    @Benchmark
+    public Instant tryParse() {
+        String value = values[next++ & 63];
+        return subject.tryParse(value);
+    }
+}
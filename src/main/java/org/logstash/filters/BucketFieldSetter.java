@@ -0,0 +1,54 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import java.time.Instant;
+
+import org.logstash.Event;
+import org.logstash.Timestamp;
+
+/**
+ * Stores the result truncated to a multiple of a number of seconds since the
+ * epoch, as a Timestamp. Buckets of whole hours are the same in every zone
+ * whose offset is a whole number of hours.
+ */
+class BucketFieldSetter implements ResultSetter {
+    private final String target;
+    private final long seconds;
+
+    BucketFieldSetter(String target, long seconds) {
+        if (seconds <= 0) {
+            throw new IllegalArgumentException(
+                    "The bucket size must be positive, got " + seconds);
+        }
+        this.target = target;
+        this.seconds = seconds;
+    }
+
+    public void set(Event event, Instant instant) {
+        set(event, instant.getEpochSecond(), instant.getNano());
+    }
+
+    public void set(Event event, long epochSecond, int nano) {
+        long start = Math.floorDiv(epochSecond, seconds) * seconds;
+        event.setField(this.target,
+                new Timestamp(Math.multiplyExact(start, 1000)));
+    }
+}
@@ -23,30 +23,100 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.logstash.Event;
 import org.logstash.ext.JrubyEventExtLibrary.RubyEvent;
+import org.logstash.filters.parser.AutoParser;
 import org.logstash.filters.parser.CasualISO8601Parser;
+import org.logstash.filters.parser.CoarseClock;
 import org.logstash.filters.parser.Jsr310Parser;
+import org.logstash.filters.parser.ParserShape;
 import org.logstash.filters.parser.TimestampParser;
 import org.logstash.filters.parser.TimestampParserFactory;
+import org.logstash.filters.parser.WarmUpValues;
+import org.logstash.filters.parser.ZoneIdCache;
 
 import java.io.IOException;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class DateFilter {
     private static Logger logger = LogManager.getLogger();
+    // Smallest part of a batch parsed by a pool thread.
+    private static final int MIN_PARALLEL_CHUNK = 256;
+    // One event in 64 gets its parse time recorded.
+    private static final int LATENCY_SAMPLE_MASK = 63;
+    // Results must fit in epoch milliseconds to be written as a Timestamp.
+    static final long MIN_EPOCH_SECOND = Long.MIN_VALUE / 1000 + 1;
+    static final long MAX_EPOCH_SECOND = Long.MAX_VALUE / 1000 - 1;
     private final String sourceField;
     private final String[] tagOnFailure;
     private RubyResultHandler successHandler;
     private RubyResultHandler failureHandler;
+    private RubyBatchResultHandler batchHandler;
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
     private final List<ParserExecutor> executors = new ArrayList<>();
-    private final ResultSetter setter;
-    private final NanoSecondTimestampFieldSetter nanoSecFieldSetter;
+    private boolean adaptiveOrdering;
+    private int parseCacheSize = 1;
+    private final ParseCache.Stats parseCacheStats = new ParseCache.Stats();
+    // Refreshed once per batch, unlike the shared CoarseClock.system().
+    private CoarseClock clock = new CoarseClock(Clock.systemUTC());
+    private int parallelThreshold;
+    private ExecutorOrdering ordering = new ExecutorOrdering(executors,
+            false);
+    // Indexed like executors; fallback executors of a format share its
+    // metrics.
+    private final Map<String, FormatMetrics> formatMetrics = new LinkedHashMap<>();
+    private FormatMetrics[] executorMetrics = new FormatMetrics[0];
+    // Indexed like executors, what they were configured with, for warmUp.
+    private final List<String[]> executorConfigs = new ArrayList<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    // At most ten failed values a second are looked into.
+    private final FailureSamples failureSamples = new FailureSamples(32, 100,
+            TimeUnit.MILLISECONDS);
+    private long failureLogIntervalNanos;
+    private final AtomicLong nextFailureLog = new AtomicLong(
+            System.nanoTime());
+    private final String targetField;
+    private ResultSetter setter;
+    private final String nanoSecField;
+    private ResultSetter nanoSecFieldSetter;
+    // Fields derived from the same result, such as an index suffix.
+    private ResultSetter[] derivedSetters = new ResultSetter[0];
+    private ArrayValue arrayValue = ArrayValue.FIRST;
+    // Range of the results the setters can write, others are failures.
+    private long minEpochSecond = MIN_EPOCH_SECOND;
+    private long maxEpochSecond = MAX_EPOCH_SECOND;
+
+    /**
+     * Which parsed element of an array source field is the result.
+     */
+    private enum ArrayValue {
+        FIRST, LAST, MIN, MAX
+    }
 
     public interface RubyResultHandler {
         void handle(RubyEvent event);
     }
 
+    /**
+     * Called once per batch with the events that matched and the number of
+     * events that did not, instead of once per event.
+     */
+    public interface RubyBatchResultHandler {
+        void handle(List<RubyEvent> matched, long failures);
+    }
+
     public DateFilter(String sourceField, String targetField,
             String nanoSecField, List<String> tagOnFailure,
             RubyResultHandler successHandler,
@@ -56,19 +126,25 @@ public class DateFilter {
         this.failureHandler = failureHandler;
     }
 
+    public DateFilter(String sourceField, String targetField,
+            String nanoSecField, List<String> tagOnFailure,
+            RubyBatchResultHandler batchHandler) {
+        this(sourceField, targetField, nanoSecField, tagOnFailure);
+        this.batchHandler = batchHandler;
+    }
+
     public DateFilter(String sourceField, String targetField,
             String nanoSecField, List<String> tagOnFailure) {
         this.sourceField = sourceField;
         this.tagOnFailure = tagOnFailure.toArray(new String[0]);
-        if (targetField.equals("@timestamp")) {
-            this.setter = new TimestampSetter();
-        } else {
-            this.setter = new FieldSetter(targetField);
-        }
+        this.targetField = targetField;
+        this.setter = makeSetter(targetField, false);
         if (nanoSecField != null && !nanoSecField.isEmpty()) {
+            this.nanoSecField = nanoSecField;
             this.nanoSecFieldSetter = new NanoSecondTimestampFieldSetter(
                     nanoSecField);
         } else {
+            this.nanoSecField = null;
             this.nanoSecFieldSetter = null;
         }
     }
@@ -76,44 +152,458 @@ public class DateFilter {
     public void acceptFilterConfig(String format, String locale,
             String timezone) {
         TimestampParser parser = TimestampParserFactory.makeParser(format,
-                locale, timezone);
+                locale, timezone, clock);
         logger.debug(
                 "Date filter with format={}, locale={}, timezone={} built as {}",
                 format, locale, timezone, parser.getClass().getName());
+        // AUTO also takes numbers; strings only need the text executor when
+        // its zone comes from the event.
+        boolean auto = parser instanceof AutoParser;
         if (parser instanceof Jsr310Parser
-                || parser instanceof CasualISO8601Parser) {
-            executors.add(new TextParserExecutor(parser, timezone));
+                || parser instanceof CasualISO8601Parser
+                || (auto && timezone != null && timezone.contains("%{"))) {
+            ParseCache cache = null;
+            if (parseCacheSize > 0 && !parser.dependsOnClock()) {
+                cache = new ParseCache(parseCacheSize, parseCacheStats);
+            }
+            executors.add(new TextParserExecutor(parser, timezone, cache,
+                    auto));
         } else {
             executors.add(new NumericParserExecutor(parser));
         }
+        FormatMetrics metrics = formatMetrics.computeIfAbsent(format,
+                FormatMetrics::new);
+        executorMetrics = Arrays.copyOf(executorMetrics, executors.size());
+        executorMetrics[executors.size() - 1] = metrics;
+        executorConfigs.add(new String[] { format, locale, timezone });
+        ordering = new ExecutorOrdering(executors, adaptiveOrdering);
     }
 
-    public List<RubyEvent> receive(List<RubyEvent> rubyEvents) {
-        for (RubyEvent rubyEvent : rubyEvents) {
-            Event event = rubyEvent.getEvent();
+    /**
+     * Parses values in each format the given number of rounds, so the first
+     * events do not pay for what the JVM does on first use: loading zone
+     * rules, initializing formatters, compiling the parsers. The values are
+     * the current time, a little earlier each round, written in the format,
+     * and the given samples. Metrics, caches, the adaptive order and the
+     * layouts AUTO learns are left as they are. Returns the number of values
+     * that parsed.
+     */
+    public long warmUp(List<String> samples, int rounds) {
+        Instant now = Instant.now();
+        List<ParserExecutor> executors = new ArrayList<>(this.executors);
+        WarmUpValues[] values = new WarmUpValues[executors.size()];
+        for (int i = 0; i < executors.size(); i++) {
+            String[] config = executorConfigs.get(i);
+            values[i] = WarmUpValues.of(config[0], config[1] == null
+                    ? Locale.getDefault() : Locale.forLanguageTag(config[1]),
+                    config[2]);
+        }
+        long parsed = 0;
+        for (int round = 0; round < rounds; round++) {
+            // A bit more than a second, for other seconds and milliseconds.
+            Instant instant = now.minusMillis(round * 1_001L);
+            for (int i = 0; i < executors.size(); i++) {
+                ParserExecutor executor = executors.get(i);
+                for (Object value : values[i].at(instant)) {
+                    parsed += warmUp(executor, value);
+                }
+                for (String sample : samples) {
+                    parsed += warmUp(executor, sample);
+                }
+            }
+        }
+        return parsed;
+    }
+
+    private static int warmUp(ParserExecutor executor, Object value) {
+        try {
+            return executor.warmUp(value) != null ? 1 : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Try the formats that match most often first, without changing which
+     * format wins for values matching more than one.
+     */
+    public void setAdaptiveOrdering(boolean adaptiveOrdering) {
+        this.adaptiveOrdering = adaptiveOrdering;
+        ordering = new ExecutorOrdering(executors, adaptiveOrdering);
+    }
+
+    /**
+     * Batches of at least this many events are parsed in parallel on the
+     * common ForkJoinPool, 0 (the default) to always parse on the calling
+     * thread. Results are still written to the events, and the handlers
+     * called, on the calling thread.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Number of recently parsed values each worker thread keeps per format,
+     * 0 to disable the cache. Must be set before acceptFilterConfig.
+     */
+    public void setParseCacheSize(int parseCacheSize) {
+        if (!executors.isEmpty()) {
+            throw new IllegalStateException(
+                    "The parse cache size must be set before the formats");
+        }
+        this.parseCacheSize = parseCacheSize;
+    }
+
+    /**
+     * Clock giving the current date used to guess the year of values parsed
+     * with a pattern that does not have one. Must be set before
+     * acceptFilterConfig.
+     */
+    public void setClock(Clock clock) {
+        if (!executors.isEmpty()) {
+            throw new IllegalStateException(
+                    "The clock must be set before the formats");
+        }
+        this.clock = new CoarseClock(clock);
+    }
+
+    private static ResultSetter makeSetter(String targetField,
+            boolean nanoseconds) {
+        if (targetField.equals("@timestamp")) {
+            return new TimestampSetter(nanoseconds);
+        } else {
+            return new FieldSetter(targetField, nanoseconds);
+        }
+    }
+
+    /**
+     * Whether the target Timestamp keeps the nanoseconds of the parsed value
+     * instead of being truncated to the millisecond. Only Logstash versions
+     * whose Timestamp holds nanoseconds can do it, the others keep
+     * milliseconds and false is returned.
+     */
+    public boolean setNanosecondTimestamps(boolean nanoseconds) {
+        boolean enabled = nanoseconds && PreciseTimestamps.available();
+        setter = makeSetter(targetField, enabled);
+        return enabled == nanoseconds;
+    }
+
+    /**
+     * How the nanosecond target field is written: "ISO8601" (the default)
+     * for a string, or "UNIX_NS" for the number of nanoseconds since the
+     * epoch.
+     */
+    public void setNanoSecondFormat(String format) {
+        if (!"ISO8601".equals(format) && !"UNIX_NS".equals(format)) {
+            throw new IllegalArgumentException(
+                    "Unknown nanosecond target format " + format);
+        }
+        if (nanoSecField == null) {
+            return;
+        }
+        if ("UNIX_NS".equals(format)) {
+            nanoSecFieldSetter = new EpochNanosFieldSetter(nanoSecField);
+        } else {
+            nanoSecFieldSetter = new NanoSecondTimestampFieldSetter(
+                    nanoSecField);
+        }
+    }
+
+    /**
+     * Which element of an array source field is the result: "first" (the
+     * default) or "last" for the first or last element matching a format,
+     * "min" or "max" for the earliest or latest time of the elements that
+     * match. Elements matching no format are skipped, the event only fails
+     * when none matches.
+     */
+    public void setArrayValue(String arrayValue) {
+        try {
+            this.arrayValue = ArrayValue
+                    .valueOf(arrayValue.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Unknown array value " + arrayValue);
+        }
+    }
+
+    /**
+     * Log a warning with a value no format could parse, and why, at most
+     * once per the given number of seconds, 0 (the default) to never log.
+     */
+    public void setFailureLogInterval(long seconds) {
+        this.failureLogIntervalNanos = TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    /**
+     * Also store the result as a number of milliseconds since the epoch in
+     * the given field.
+     */
+    public void addEpochMillisField(String field) {
+        addDerivedSetter(new EpochMillisFieldSetter(field));
+    }
+
+    /**
+     * Also store the day of the result in the given zone, formatted with a
+     * date-only pattern such as "yyyy.MM.dd", in the given field.
+     */
+    public void addDayField(String field, String pattern, String timezone) {
+        addDerivedSetter(new DayFieldSetter(field, pattern,
+                ZoneIdCache.of(timezone)));
+    }
+
+    /**
+     * Also store the result truncated to a multiple of the given number of
+     * seconds since the epoch, as a Timestamp, in the given field.
+     */
+    public void addBucketField(String field, long seconds) {
+        addDerivedSetter(new BucketFieldSetter(field, seconds));
+        // The bucket of the earliest results must start in range too.
+        minEpochSecond = Math.max(minEpochSecond,
+                MIN_EPOCH_SECOND + seconds - 1);
+    }
+
+    private void addDerivedSetter(ResultSetter derived) {
+        ResultSetter[] setters = Arrays.copyOf(derivedSetters,
+                derivedSetters.length + 1);
+        setters[setters.length - 1] = derived;
+        derivedSetters = setters;
+    }
+
+    /**
+     * Events that matched one of the formats in receive.
+     */
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    /**
+     * Events that did not match any of the formats in receive.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Attempts and successes of each of the configured formats, in config
+     * order, counted per event even for values only parsed once per batch.
+     */
+    public List<FormatMetrics> getFormatMetrics() {
+        return new ArrayList<>(formatMetrics.values());
+    }
+
+    /**
+     * Time taken to parse the source field of a sample of the events, whether
+     * a format matched or not. Events of a batch repeating the value of an
+     * earlier one are not parsed, so they are not sampled.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * A sample of the recent values no format could parse, with the reason
+     * each format gave.
+     */
+    public FailureSamples getFailureSamples() {
+        return failureSamples;
+    }
+
+    public long getParseCacheHits() {
+        return parseCacheStats.hits();
+    }
+
+    /**
+     * Values found by reusing the previous result with another fraction of
+     * a second.
+     */
+    public long getParseCachePrefixHits() {
+        return parseCacheStats.prefixHits();
+    }
+
+    public long getParseCacheMisses() {
+        return parseCacheStats.misses();
+    }
 
-            switch (executeParsers(event)) {
+    public List<RubyEvent> receive(List<RubyEvent> rubyEvents) {
+        clock.refresh();
+        ordering.maybeReorder();
+        Event[] events = new Event[rubyEvents.size()];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = rubyEvents.get(i).getEvent();
+        }
+        ParsedBatch batch = parseBatch(events);
+        List<RubyEvent> matched = batchHandler == null ? null
+                : new ArrayList<>(events.length);
+        long matchCount = 0;
+        long failureCount = 0;
+        for (int i = 0; i < events.length; i++) {
+            Event event = events[i];
+            switch (batch.result(i)) {
                 case FIELD_VALUE_IS_NULL_OR_FIELD_NOT_PRESENT:
                 case IGNORED:
                     continue;
                 case SUCCESS:
-                    if (successHandler != null) {
-                        successHandler.handle(rubyEvent);
+                    setter.set(event, batch.epochSeconds[i], batch.nanos[i]);
+                    if (this.nanoSecFieldSetter != null) {
+                        this.nanoSecFieldSetter.set(event,
+                                batch.epochSeconds[i], batch.nanos[i]);
+                    }
+                    for (ResultSetter derived : derivedSetters) {
+                        derived.set(event, batch.epochSeconds[i],
+                                batch.nanos[i]);
+                    }
+                    matchCount++;
+                    if (matched != null) {
+                        matched.add(rubyEvents.get(i));
+                    } else if (successHandler != null) {
+                        successHandler.handle(rubyEvents.get(i));
                     }
                     break;
                 case FAIL: // fall through
                 default:
+                    failureCount++;
                     for (String t : tagOnFailure) {
                         event.tag(t);
                     }
                     if (failureHandler != null) {
-                        failureHandler.handle(rubyEvent);
+                        failureHandler.handle(rubyEvents.get(i));
                     }
             }
         }
+        matches.add(matchCount);
+        failures.add(failureCount);
+        if (batchHandler != null && (matchCount > 0 || failureCount > 0)) {
+            batchHandler.handle(matched, failureCount);
+        }
         return rubyEvents;
     }
 
+    /**
+     * Parses the source field of each event without writing anything back to
+     * the events. The source values are read first, then parsed in one loop
+     * (or in parallel, see setParallelThreshold); repeated values are only
+     * parsed once, unless a format takes something else (like its timezone)
+     * from the event.
+     */
+    public ParsedBatch parseBatch(Event[] events) {
+        ParsedBatch batch = new ParsedBatch(events.length);
+        Object[] inputs = new Object[events.length];
+        for (int i = 0; i < events.length; i++) {
+            inputs[i] = events[i].getField(sourceField);
+            if (events[i].isCancelled()) {
+                batch.set(i, ParseExecutionResult.IGNORED);
+                inputs[i] = null;
+            } else if (inputs[i] == null) {
+                batch.set(i, ParseExecutionResult.FIELD_VALUE_IS_NULL_OR_FIELD_NOT_PRESENT);
+            }
+        }
+
+        ExecutorOrdering ordering = this.ordering;
+        if (parallelThreshold > 0 && events.length >= parallelThreshold) {
+            int chunk = Math.max(MIN_PARALLEL_CHUNK, events.length
+                    / (4 * ForkJoinPool.getCommonPoolParallelism()));
+            ForkJoinPool.commonPool().invoke(new ParseRangeTask(inputs,
+                    events, batch, ordering, 0, events.length, chunk));
+        } else {
+            parseRange(inputs, events, batch, ordering, 0, events.length);
+        }
+        return batch;
+    }
+
+    private void parseRange(Object[] inputs, Event[] events,
+            ParsedBatch batch, ExecutorOrdering ordering, int from, int to) {
+        // For each event, the first one in the range with the same input,
+        // and for first ones, how many events have their input: repeated
+        // inputs are parsed once, but count in the metrics once per event.
+        int[] firstOf = null;
+        int[] weights = null;
+        if (to - from > 1 && !ordering.dependsOnEvent()) {
+            firstOf = new int[to - from];
+            weights = new int[to - from];
+            // Open addressing table from input hashes to the first event
+            // with that input, -1 for empty slots.
+            int[] firsts = new int[Integer.highestOneBit((to - from) * 2 - 1) << 1];
+            Arrays.fill(firsts, -1);
+            int mask = firsts.length - 1;
+            for (int i = from; i < to; i++) {
+                Object input = inputs[i];
+                if (input == null) {
+                    continue;
+                }
+                int slot = (input.hashCode() * 0x9E3779B9)
+                        >>> Integer.numberOfLeadingZeros(mask);
+                while (firsts[slot] >= 0 && !input.equals(inputs[firsts[slot]])) {
+                    slot = (slot + 1) & mask;
+                }
+                if (firsts[slot] < 0) {
+                    firsts[slot] = i;
+                }
+                firstOf[i - from] = firsts[slot];
+                weights[firsts[slot] - from]++;
+            }
+        }
+        for (int i = from; i < to; i++) {
+            Object input = inputs[i];
+            if (input == null || (firstOf != null && firstOf[i - from] != i)) {
+                continue;
+            }
+            int weight = weights != null ? weights[i - from] : 1;
+            Instant instant = parse(input, events[i], ordering, weight);
+            if (instant != null) {
+                batch.set(i, instant);
+            } else {
+                batch.set(i, ParseExecutionResult.FAIL);
+            }
+        }
+        if (firstOf != null) {
+            for (int i = from; i < to; i++) {
+                if (inputs[i] != null && firstOf[i - from] != i) {
+                    batch.copy(firstOf[i - from], i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses a range of a batch, split in halves down to chunks of the given
+     * size that run on the pool's threads.
+     */
+    private final class ParseRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] inputs;
+        private final Event[] events;
+        private final ParsedBatch batch;
+        private final ExecutorOrdering ordering;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        ParseRangeTask(Object[] inputs, Event[] events, ParsedBatch batch,
+                ExecutorOrdering ordering, int from, int to, int chunk) {
+            this.inputs = inputs;
+            this.events = events;
+            this.batch = batch;
+            this.ordering = ordering;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                parseRange(inputs, events, batch, ordering, from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseRangeTask(inputs, events, batch, ordering,
+                        from, middle, chunk),
+                        new ParseRangeTask(inputs, events, batch, ordering,
+                                middle, to, chunk));
+            }
+        }
+    }
+
     public ParseExecutionResult executeParsers(Event event) {
         Object input = event.getField(sourceField);
         if (event.isCancelled()) {
@@ -123,18 +613,188 @@ public class DateFilter {
             return ParseExecutionResult.FIELD_VALUE_IS_NULL_OR_FIELD_NOT_PRESENT;
         }
 
-        for (ParserExecutor executor : executors) {
-            try {
-                Instant instant = executor.execute(input, event);
-                setter.set(event, instant);
-                if (this.nanoSecFieldSetter != null) {
-                    this.nanoSecFieldSetter.set(event, instant);
+        Instant instant = parse(input, event, this.ordering, 1);
+        if (instant == null) {
+            return ParseExecutionResult.FAIL;
+        }
+        setter.set(event, instant);
+        if (this.nanoSecFieldSetter != null) {
+            this.nanoSecFieldSetter.set(event, instant);
+        }
+        for (ResultSetter derived : derivedSetters) {
+            derived.set(event, instant);
+        }
+        return ParseExecutionResult.SUCCESS;
+    }
+
+    /**
+     * Parses the input of the given number of events, which all have the
+     * same one. The format metrics count every event, the latency only the
+     * time the one parse took.
+     */
+    private Instant parse(Object input, Event event,
+            ExecutorOrdering ordering, int events) {
+        boolean sampled = (ThreadLocalRandom.current().nextInt()
+                & LATENCY_SAMPLE_MASK) == 0;
+        long start = sampled ? System.nanoTime() : 0;
+        Instant result;
+        if (input instanceof List) {
+            result = parseElements((List<?>) input, event, ordering, events);
+        } else {
+            result = parseValue(input, event, ordering, events);
+        }
+        if (sampled) {
+            latency.record(System.nanoTime() - start);
+        }
+        if (result == null && failureSamples.admit()) {
+            sampleFailure(input, event, ordering);
+        }
+        return result;
+    }
+
+    /**
+     * Asks each format why it did not parse the input, for arrays the first
+     * element that is not null.
+     */
+    private void sampleFailure(Object input, Event event,
+            ExecutorOrdering ordering) {
+        Object value = input;
+        if (input instanceof List) {
+            value = null;
+            for (Object element : (List<?>) input) {
+                if (element != null) {
+                    value = element;
+                    break;
                 }
-                return ParseExecutionResult.SUCCESS;
+            }
+            if (value == null) {
+                return;
+            }
+        }
+        int length = -1;
+        long signature = 0;
+        if (value instanceof CharSequence) {
+            length = ((CharSequence) value).length();
+            signature = ParserShape.signature((CharSequence) value);
+        }
+        FormatMetrics[] metrics = this.executorMetrics;
+        ParserExecutor[] executors = ordering.executors();
+        Map<String, String> reasons = new LinkedHashMap<>();
+        for (int i = 0; i < executors.length; i++) {
+            String reason;
+            if (length >= 0 && ordering.rejects(i, length, signature)) {
+                reason = "not tried, the length or characters of the value"
+                        + " cannot match";
+            } else {
+                reason = executors[i].explain(value, event);
+            }
+            reasons.merge(metrics[i].getFormat(), reason,
+                    (first, second) -> first + "; " + second);
+        }
+        FailureSamples.Sample sample = new FailureSamples.Sample(
+                System.currentTimeMillis(), value, reasons);
+        failureSamples.add(sample);
+        if (failureLogDue()) {
+            logger.warn("No format could parse {} from field {}, the reason"
+                    + " of each is {} (similar warnings are skipped for {}s)",
+                    sample.getValue(), sourceField, reasons,
+                    TimeUnit.NANOSECONDS.toSeconds(failureLogIntervalNanos));
+        }
+    }
+
+    private boolean failureLogDue() {
+        long interval = failureLogIntervalNanos;
+        if (interval <= 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        long next = nextFailureLog.get();
+        return now - next >= 0
+                && nextFailureLog.compareAndSet(next, now + interval);
+    }
+
+    /**
+     * Each element goes through the executors like a single value would.
+     */
+    private Instant parseElements(List<?> elements, Event event,
+            ExecutorOrdering ordering, int events) {
+        int size = elements.size();
+        switch (arrayValue) {
+            case FIRST:
+                for (int i = 0; i < size; i++) {
+                    Instant instant = parseValue(elements.get(i), event,
+                            ordering, events);
+                    if (instant != null) {
+                        return instant;
+                    }
+                }
+                return null;
+            case LAST:
+                for (int i = size - 1; i >= 0; i--) {
+                    Instant instant = parseValue(elements.get(i), event,
+                            ordering, events);
+                    if (instant != null) {
+                        return instant;
+                    }
+                }
+                return null;
+            default:
+                Instant result = null;
+                for (int i = 0; i < size; i++) {
+                    Instant instant = parseValue(elements.get(i), event,
+                            ordering, events);
+                    if (instant != null && (result == null
+                            || (arrayValue == ArrayValue.MIN
+                                    ? instant.isBefore(result)
+                                    : instant.isAfter(result)))) {
+                        result = instant;
+                    }
+                }
+                return result;
+        }
+    }
+
+    private Instant parseValue(Object input, Event event,
+            ExecutorOrdering ordering, int events) {
+        if (input == null) {
+            return null;
+        }
+        FormatMetrics[] metrics = this.executorMetrics;
+        ParserExecutor[] executors = ordering.executors();
+        int length = -1;
+        long signature = 0;
+        if (input instanceof CharSequence && ordering.routes()) {
+            length = ((CharSequence) input).length();
+            signature = ParserShape.signature((CharSequence) input);
+        }
+        Instant result = null;
+        for (int index : ordering.order()) {
+            if (length >= 0 && ordering.rejects(index, length, signature)) {
+                continue;
+            }
+            ParserExecutor executor = executors[index];
+            metrics[index].attempt(events);
+            Instant instant;
+            try {
+                instant = executor.execute(input, event);
             } catch (Exception e) {
-                // do nothing, try next ParserExecutor
+                // executors report a mismatch by returning null, this is
+                // only for sprintf failures and the unexpected
+                continue;
+            }
+            if (instant != null && (instant.getEpochSecond() < minEpochSecond
+                    || instant.getEpochSecond() > maxEpochSecond)) {
+                // Parsed, but out of the range of the setters: a failure of
+                // this format, another one may still give a usable result.
+                continue;
+            }
+            if (instant != null) {
+                metrics[index].success(events);
+                ordering.hit(index, events);
+                result = instant;
+                break;
             }
         }
-        return ParseExecutionResult.FAIL;
+        return result;
     }
 }
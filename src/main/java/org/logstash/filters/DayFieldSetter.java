@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import org.logstash.Event;
+
+/**
+ * Stores the day of the result in a zone, formatted with a date pattern
+ * such as "yyyy.MM.dd" for index names.
+ *
+ * Days are only formatted once: a small table keyed by the UTC day keeps the
+ * start and end of recently seen local days with their text. Entries are
+ * immutable, so workers can replace them without locking.
+ */
+class DayFieldSetter implements ResultSetter {
+    private static final int DAYS = 16;
+
+    private final String target;
+    private final DateTimeFormatter formatter;
+    private final ZoneId zone;
+    private final Day[] days = new Day[DAYS];
+
+    private static final class Day {
+        final long start;
+        final long end;
+        final String text;
+
+        Day(long start, long end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+    }
+
+    DayFieldSetter(String target, String pattern, ZoneId zone) {
+        this.target = target;
+        this.zone = zone;
+        this.formatter = DateTimeFormatter.ofPattern(pattern, Locale.ENGLISH);
+        // Fail on time fields now rather than on the first event.
+        try {
+            formatter.format(LocalDate.of(2000, 1, 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("The day pattern " + pattern
+                    + " must only have date fields", e);
+        }
+    }
+
+    public void set(Event event, Instant instant) {
+        set(event, instant.getEpochSecond(), instant.getNano());
+    }
+
+    public void set(Event event, long epochSecond, int nano) {
+        event.setField(this.target, format(epochSecond));
+    }
+
+    String format(long epochSecond) {
+        int slot = (int) Math.floorMod(Math.floorDiv(epochSecond, 86400L),
+                (long) DAYS);
+        Day day = days[slot];
+        if (day == null || epochSecond < day.start || epochSecond >= day.end) {
+            LocalDate date = Instant.ofEpochSecond(epochSecond).atZone(zone)
+                    .toLocalDate();
+            day = new Day(date.atStartOfDay(zone).toEpochSecond(),
+                    date.plusDays(1).atStartOfDay(zone).toEpochSecond(),
+                    formatter.format(date));
+            days[slot] = day;
+        }
+        return day.text;
+    }
+}
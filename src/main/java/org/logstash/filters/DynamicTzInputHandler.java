@@ -28,17 +28,46 @@ import java.time.Instant;
 class DynamicTzInputHandler implements InputHandler {
   private TimestampParser parser;
   private String timeZone;
+  // Set when the timezone is nothing but a "%{field}" reference.
+  private String timeZoneField;
+  private ParseCache cache;
 
   public DynamicTzInputHandler(TimestampParser parser, String timeZone) {
+    this(parser, timeZone, null);
+  }
+
+  public DynamicTzInputHandler(TimestampParser parser, String timeZone, ParseCache cache) {
     this.parser = parser;
     this.timeZone = timeZone;
+    this.cache = cache;
+    if (timeZone.length() > 3 && timeZone.startsWith("%{") && timeZone.endsWith("}")
+        && timeZone.indexOf('}') == timeZone.length() - 1
+        && timeZone.indexOf("%{", 2) < 0 && timeZone.charAt(2) != '+') {
+      this.timeZoneField = timeZone.substring(2, timeZone.length() - 1);
+    }
   }
 
   public DynamicTzInputHandler(TimestampParser parser) {
     this.parser = parser;
   }
 
-  public Instant handle(String input, Event event) throws IOException {
-    return this.parser.parseWithTimeZone(input, event.sprintf(timeZone));
+  public Instant handle(CharSequence input, Event event) throws IOException {
+    String resolvedTimeZone = resolveTimeZone(event);
+    if (cache != null && input instanceof String) {
+      return cache.parse(this.parser, (String) input, resolvedTimeZone);
+    }
+    return this.parser.tryParseWithTimeZone(input, resolvedTimeZone);
+  }
+
+  private String resolveTimeZone(Event event) throws IOException {
+    if (timeZoneField != null) {
+      // Same result as sprintf for string values, which is what timezones
+      // are; anything else still goes through sprintf.
+      Object value = event.getField(timeZoneField);
+      if (value instanceof String) {
+        return (String) value;
+      }
+    }
+    return event.sprintf(timeZone);
   }
 }
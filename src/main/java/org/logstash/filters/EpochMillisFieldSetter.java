@@ -0,0 +1,44 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import java.time.Instant;
+
+import org.logstash.Event;
+
+/**
+ * Stores the result as a number of milliseconds since the epoch.
+ */
+class EpochMillisFieldSetter implements ResultSetter {
+    private final String target;
+
+    EpochMillisFieldSetter(String target) {
+        this.target = target;
+    }
+
+    public void set(Event event, Instant instant) {
+        event.setField(this.target, instant.toEpochMilli());
+    }
+
+    public void set(Event event, long epochSecond, int nano) {
+        event.setField(this.target, Math.addExact(
+                Math.multiplyExact(epochSecond, 1000), nano / 1000000));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import java.math.BigInteger;
+import java.time.Instant;
+
+import org.logstash.Event;
+
+/**
+ * Stores the result as a number of nanoseconds since the epoch.
+ */
+class EpochNanosFieldSetter implements ResultSetter {
+    private static final BigInteger NANOS_PER_SECOND = BigInteger
+            .valueOf(1000000000L);
+    // Epoch seconds for which the nanoseconds fit in a long.
+    private static final long MIN_EPOCH_SECOND = Long.MIN_VALUE / 1000000000L + 1;
+    private static final long MAX_EPOCH_SECOND = Long.MAX_VALUE / 1000000000L - 1;
+
+    private final String target;
+
+    EpochNanosFieldSetter(String target) {
+        this.target = target;
+    }
+
+    public void set(Event event, Instant instant) {
+        event.setField(this.target, epochNanos(instant));
+    }
+
+    public void set(Event event, long epochSecond, int nano) {
+        event.setField(this.target, epochNanos(epochSecond, nano));
+    }
+
+    static Number epochNanos(Instant instant) {
+        return epochNanos(instant.getEpochSecond(), instant.getNano());
+    }
+
+    static Number epochNanos(long epochSecond, int nano) {
+        if (epochSecond >= MIN_EPOCH_SECOND && epochSecond <= MAX_EPOCH_SECOND) {
+            return epochSecond * 1000000000L + nano;
+        }
+        // Before 1677 or after 2262.
+        return BigInteger.valueOf(epochSecond).multiply(NANOS_PER_SECOND)
+                .add(BigInteger.valueOf(nano));
+    }
+}
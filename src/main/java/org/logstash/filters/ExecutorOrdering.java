@@ -0,0 +1,193 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import org.logstash.filters.parser.ParserShape;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The order in which DateFilter tries its executors.
+ *
+ * By default this is the config order. In adaptive mode the executors that
+ * matched the most values since the previous reordering are tried first, but
+ * an executor is never moved ahead of an earlier configured one whose
+ * ParserShape overlaps with its own: a value matching several formats still
+ * gets the first configured one.
+ *
+ * Each executor's ParserShape also serves to route a string to the
+ * executors that may match it: the others are skipped, which does not change
+ * which format wins either.
+ *
+ * Workers only read the current order and bump striped counters; reordering
+ * is done by whichever worker wins a flag, at most once per interval, and is
+ * published by replacing the order array.
+ */
+class ExecutorOrdering {
+    private static final long REORDER_INTERVAL_NANOS = TimeUnit.SECONDS
+            .toNanos(1);
+
+    private final boolean adaptive;
+    private final ParserExecutor[] executors;
+    private final ParserShape[] shapes;
+    private final boolean routes;
+    private final boolean dependsOnEvent;
+    private final boolean[][] overlaps;
+    private final LongAdder[] hits;
+    private final long[] previousHits;
+    private final AtomicBoolean reordering = new AtomicBoolean();
+    private volatile long nextReorder;
+    private volatile int[] order;
+
+    ExecutorOrdering(List<ParserExecutor> executors, boolean adaptive) {
+        int count = executors.size();
+        this.adaptive = adaptive && count > 1;
+        this.executors = executors.toArray(new ParserExecutor[count]);
+        this.overlaps = new boolean[count][count];
+        this.hits = new LongAdder[count];
+        this.previousHits = new long[count];
+        this.order = new int[count];
+        this.shapes = new ParserShape[count];
+        boolean routes = false;
+        for (int i = 0; i < count; i++) {
+            shapes[i] = this.executors[i].shape();
+            routes |= !shapes[i].isUnrestricted();
+        }
+        // With a single executor there is nothing to skip in favour of.
+        this.routes = routes && count > 1;
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            hits[i] = new LongAdder();
+            for (int j = 0; j < i; j++) {
+                overlaps[j][i] = !this.executors[j].shape()
+                        .excludes(this.executors[i].shape());
+            }
+        }
+        boolean dependsOnEvent = false;
+        for (ParserExecutor executor : this.executors) {
+            dependsOnEvent |= executor.dependsOnEvent();
+        }
+        this.dependsOnEvent = dependsOnEvent;
+        this.nextReorder = System.nanoTime() + REORDER_INTERVAL_NANOS;
+    }
+
+    /**
+     * The executors in config order, indexed by the values of order().
+     */
+    ParserExecutor[] executors() {
+        return executors;
+    }
+
+    /**
+     * Whether any of the executors takes more than the input from the event.
+     */
+    boolean dependsOnEvent() {
+        return dependsOnEvent;
+    }
+
+    /**
+     * Whether some executors may be skipped based on their input, see
+     * rejects.
+     */
+    boolean routes() {
+        return routes;
+    }
+
+    /**
+     * Whether the executor cannot match a string of this length and
+     * ParserShape signature.
+     */
+    boolean rejects(int index, int length, long signature) {
+        return shapes[index].rejects(length, signature);
+    }
+
+    int[] order() {
+        return order;
+    }
+
+    void hit(int index) {
+        hit(index, 1);
+    }
+
+    void hit(int index, int events) {
+        if (adaptive) {
+            hits[index].add(events);
+        }
+    }
+
+    void maybeReorder() {
+        if (adaptive && System.nanoTime() - nextReorder >= 0
+                && reordering.compareAndSet(false, true)) {
+            try {
+                nextReorder = System.nanoTime() + REORDER_INTERVAL_NANOS;
+                reorder();
+            } finally {
+                reordering.set(false);
+            }
+        }
+    }
+
+    void reorder() {
+        int count = executors.length;
+        long[] recent = new long[count];
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            long sum = hits[i].sum();
+            recent[i] = sum - previousHits[i];
+            previousHits[i] = sum;
+            total += recent[i];
+        }
+        if (total == 0) {
+            return;
+        }
+
+        // Pick the most used executor among those whose overlapping
+        // predecessors are already placed. The first unplaced executor is
+        // always a candidate, and ties keep the config order.
+        int[] next = new int[count];
+        boolean[] placed = new boolean[count];
+        for (int slot = 0; slot < count; slot++) {
+            int best = -1;
+            for (int i = 0; i < count; i++) {
+                if (placed[i] || !predecessorsPlaced(i, placed)) {
+                    continue;
+                }
+                if (best < 0 || recent[i] > recent[best]) {
+                    best = i;
+                }
+            }
+            next[slot] = best;
+            placed[best] = true;
+        }
+        order = next;
+    }
+
+    private boolean predecessorsPlaced(int index, boolean[] placed) {
+        for (int j = 0; j < index; j++) {
+            if (overlaps[j][index] && !placed[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The most recent of a sample of the values no format could parse, with why
+ * each format did not. At most one failure is taken per interval, so finding
+ * out why a value failed, which means parsing it again with every format, is
+ * only done for a handful of values however many fail.
+ */
+public final class FailureSamples {
+    private static final int MAX_VALUE_LENGTH = 256;
+
+    private final AtomicReferenceArray<Sample> ring;
+    private final long intervalNanos;
+    private final AtomicLong nextSample;
+    private final AtomicLong count = new AtomicLong();
+
+    public FailureSamples(int capacity, long interval, TimeUnit unit) {
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.intervalNanos = unit.toNanos(interval);
+        this.nextSample = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Whether the failure of the caller should be added, true at most once
+     * per interval whatever the number of threads asking.
+     */
+    boolean admit() {
+        long now = System.nanoTime();
+        long next = nextSample.get();
+        return now - next >= 0
+                && nextSample.compareAndSet(next, now + intervalNanos);
+    }
+
+    void add(Sample sample) {
+        long index = count.getAndIncrement();
+        ring.set((int) (index % ring.length()), sample);
+    }
+
+    /**
+     * Number of samples taken so far, including those the buffer no longer
+     * holds.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * The samples still held, the most recent first.
+     */
+    public List<Sample> getSamples() {
+        long end = count.get();
+        int size = (int) Math.min(end, ring.length());
+        List<Sample> samples = new ArrayList<>(size);
+        for (long index = end - 1; index >= end - size; index--) {
+            Sample sample = ring.get((int) (index % ring.length()));
+            if (sample != null) {
+                samples.add(sample);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * The reason given by an exception, its class when it has no message.
+     */
+    static String reason(Exception e) {
+        String message = e.getMessage();
+        return message != null ? message : e.getClass().getSimpleName();
+    }
+
+    public static final class Sample {
+        private final long timeMillis;
+        private final String value;
+        private final Map<String, String> reasons;
+
+        Sample(long timeMillis, Object value, Map<String, String> reasons) {
+            String text = String.valueOf(value);
+            if (text.length() > MAX_VALUE_LENGTH) {
+                text = text.substring(0, MAX_VALUE_LENGTH) + "...";
+            }
+            this.timeMillis = timeMillis;
+            this.value = text;
+            this.reasons = Collections.unmodifiableMap(reasons);
+        }
+
+        /**
+         * When the value failed, in milliseconds since the epoch.
+         */
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        /**
+         * The value, cut after 256 characters.
+         */
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * Why each format did not parse the value, in config order.
+         */
+        public Map<String, String> getReasons() {
+            return reasons;
+        }
+
+        @Override
+        public String toString() {
+            return "\"" + value + "\" " + reasons;
+        }
+    }
+}
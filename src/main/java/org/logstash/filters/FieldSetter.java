@@ -26,12 +26,26 @@ import org.logstash.Timestamp;
 
 class FieldSetter implements ResultSetter {
   private String target;
+  private final boolean nanoseconds;
 
   FieldSetter(String target) {
+    this(target, false);
+  }
+
+  FieldSetter(String target, boolean nanoseconds) {
     this.target = target;
+    this.nanoseconds = nanoseconds;
   }
 
   public void set(Event event, Instant instant) {
-    event.setField(this.target, new Timestamp(instant.toEpochMilli()));
+    event.setField(this.target, nanoseconds ? PreciseTimestamps.of(instant) : new Timestamp(instant.toEpochMilli()));
+  }
+
+  public void set(Event event, long epochSecond, int nano) {
+    if (nanoseconds) {
+      set(event, Instant.ofEpochSecond(epochSecond, nano));
+    } else {
+      event.setField(this.target, new Timestamp(Math.multiplyExact(epochSecond, 1000) + nano / 1000000));
+    }
   }
 }
@@ -0,0 +1,65 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.logstash.filters;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How often one of the match formats was tried, and how often it matched.
+ */
+public final class FormatMetrics {
+    private final String format;
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+
+    FormatMetrics(String format) {
+        this.format = format;
+    }
+
+    /**
+     * Counts the given number of events, which all had the same value.
+     */
+    void attempt(int events) {
+        attempts.add(events);
+    }
+
+    void success(int events) {
+        successes.add(events);
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    /**
+     * Attempts that did not match, whether another format matched after it
+     * or not.
+     */
+    public long getFailures() {
+        return Math.max(0, getAttempts() - getSuccesses());
+    }
+}
@@ -25,5 +25,9 @@ import java.io.IOException;
 import java.time.Instant;
 
 interface InputHandler {
-  Instant handle(String input, Event event) throws IOException;
+  /**
+   * Returns null when the input does not match the parser. Inputs that are
+   * not Strings (a JRuby ByteList...) are read without being copied.
+   */
+  Instant handle(CharSequence input, Event event) throws IOException;
 }
@@ -20,13 +20,23 @@
 package org.logstash.filters;
 
 import java.time.Instant;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 
 import org.logstash.Event;
 
 class NanoSecondTimestampFieldSetter implements ResultSetter {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS'Z'")
+            .withZone(ZoneOffset.UTC);
+    // 0001-01-01T00:00:00Z and 10000-01-01T00:00:00Z: the formatter writes
+    // years out of this range with a sign or as years of an era.
+    private static final long MIN_EPOCH_SECOND = -62135596800L;
+    private static final long MAX_EPOCH_SECOND = 253402300800L;
+    private static final int LENGTH = 30;
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal
+            .withInitial(() -> new char[LENGTH]);
+
     private String target;
 
     NanoSecondTimestampFieldSetter(String target) {
@@ -34,8 +44,64 @@ class NanoSecondTimestampFieldSetter implements ResultSetter {
     }
 
     public void set(Event event, Instant instant) {
-        event.setField(this.target, DateTimeFormatter
-                .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS'Z'")
-                .format(ZonedDateTime.ofInstant(instant, ZoneId.of("UTC"))));
+        event.setField(this.target, format(instant));
+    }
+
+    public void set(Event event, long epochSecond, int nano) {
+        event.setField(this.target, format(epochSecond, nano));
+    }
+
+    static String format(Instant instant) {
+        return format(instant.getEpochSecond(), instant.getNano());
+    }
+
+    /**
+     * Same as the yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS'Z' formatter in UTC, written
+     * from the epoch seconds without building date objects.
+     */
+    static String format(long epochSecond, int nano) {
+        if (epochSecond < MIN_EPOCH_SECOND || epochSecond >= MAX_EPOCH_SECOND) {
+            return FORMATTER.format(Instant.ofEpochSecond(epochSecond, nano));
+        }
+        long epochDay = Math.floorDiv(epochSecond, 86400);
+        int secondOfDay = (int) Math.floorMod(epochSecond, 86400);
+
+        // Civil date from the day number, in 400 year eras starting on March 1st.
+        long shifted = epochDay + 719468;
+        long era = Math.floorDiv(shifted, 146097);
+        int dayOfEra = (int) (shifted - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+                - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra
+                - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int monthFromMarch = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * monthFromMarch + 2) / 5 + 1;
+        int month = monthFromMarch < 10 ? monthFromMarch + 3 : monthFromMarch - 9;
+        int year = (int) (era * 400) + yearOfEra + (month <= 2 ? 1 : 0);
+
+        char[] buffer = BUFFER.get();
+        writeDigits(buffer, 0, year, 4);
+        buffer[4] = '-';
+        writeDigits(buffer, 5, month, 2);
+        buffer[7] = '-';
+        writeDigits(buffer, 8, day, 2);
+        buffer[10] = 'T';
+        writeDigits(buffer, 11, secondOfDay / 3600, 2);
+        buffer[13] = ':';
+        writeDigits(buffer, 14, secondOfDay / 60 % 60, 2);
+        buffer[16] = ':';
+        writeDigits(buffer, 17, secondOfDay % 60, 2);
+        buffer[19] = '.';
+        writeDigits(buffer, 20, nano, 9);
+        buffer[29] = 'Z';
+        return new String(buffer, 0, LENGTH);
+    }
+
+    private static void writeDigits(char[] buffer, int position, int value,
+            int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
     }
 }
@@ -20,6 +20,7 @@
 package org.logstash.filters;
 
 import org.logstash.Event;
+import org.logstash.filters.parser.ParserShape;
 import org.logstash.filters.parser.TimestampParser;
 
 import java.io.IOException;
@@ -34,17 +35,58 @@ class NumericParserExecutor implements ParserExecutor {
 
   public Instant execute(Object input, Event event) throws IOException {
     if (input instanceof String) {
-      return parser.parse((String) input);
+      return parser.tryParse((String) input);
+    } else if (input instanceof CharSequence) {
+      return parser.tryParse((CharSequence) input);
+    } else if (input instanceof byte[]) {
+      byte[] bytes = (byte[]) input;
+      return parser.tryParse(bytes, 0, bytes.length);
     } else if (input instanceof Long) {
-      return parser.parse((Long)input);
+      return parser.tryParse(((Long) input).longValue());
     } else if (input instanceof Integer) {
-      return parser.parse(((Integer) input).longValue());
+      return parser.tryParse(((Integer) input).longValue());
     } else if (input instanceof Double) {
-      return parser.parse((Double) input);
+      return parser.tryParse(((Double) input).doubleValue());
     } else if (input instanceof BigDecimal) {
-      return parser.parse((BigDecimal) input);
+      return parser.tryParse((BigDecimal) input);
     } else {
-      throw new IllegalArgumentException("Cannot parse date for value of type " + input.getClass().getName());
+      return null;
     }
   }
+
+  public Instant warmUp(Object input) {
+    if (input instanceof CharSequence) {
+      return parser.warmUp((CharSequence) input, null);
+    }
+    try {
+      return execute(input, null);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  public String explain(Object input, Event event) {
+    try {
+      if (input instanceof CharSequence) {
+        parser.parse(input.toString());
+      } else if (input instanceof Long) {
+        parser.parse((Long) input);
+      } else if (input instanceof Integer) {
+        parser.parse(((Integer) input).longValue());
+      } else if (input instanceof Double) {
+        parser.parse((Double) input);
+      } else if (input instanceof BigDecimal) {
+        parser.parse((BigDecimal) input);
+      } else if (!(input instanceof byte[])) {
+        return "unsupported type " + input.getClass().getSimpleName();
+      }
+    } catch (Exception e) {
+      return FailureSamples.reason(e);
+    }
+    return "no match";
+  }
+
+  public ParserShape shape() {
+    return parser.shape();
+  }
 }
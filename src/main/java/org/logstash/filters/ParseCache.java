@@ -0,0 +1,158 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import org.logstash.filters.parser.TimestampParser;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small per-thread cache of recently parsed values, for batches where
+ * consecutive events carry the same timestamp text.
+ *
+ * Each worker thread gets its own direct-mapped table, so lookups need no
+ * synchronization. A value missing from the table can still reuse the last
+ * result of the thread when it only differs in the digits of the fraction of
+ * a second, as reported by TimestampParser.fractionStart and fractionEnd;
+ * only the fraction is then decoded.
+ */
+class ParseCache {
+  private static final int[] FRACTION_SCALE = { 1, 100000000, 10000000, 1000000, 100000, 10000, 1000, 100, 10, 1 };
+
+  private final int mask;
+  private final Stats stats;
+  private final ThreadLocal<Entries> entries;
+
+  ParseCache(int size, Stats stats) {
+    int capacity = (size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1);
+    this.mask = capacity - 1;
+    this.stats = stats;
+    this.entries = ThreadLocal.withInitial(() -> new Entries(capacity));
+  }
+
+  /**
+   * Returns the parsed value, or null when it does not match the parser.
+   *
+   * @param timezone the resolved timezone of a dynamic zone, or null to use
+   *                 the one of the parser
+   */
+  Instant parse(TimestampParser parser, String input, String timezone) {
+    Entries entries = this.entries.get();
+    int hash = input.hashCode() * 31 + (timezone == null ? 0 : timezone.hashCode());
+    Entry entry = entries.table[hash & mask];
+    if (input.equals(entry.input) && sameTimezone(entry, timezone)) {
+      stats.hits.increment();
+      return entry.instant;
+    }
+
+    Instant instant = reuseFraction(entries.last, input, timezone);
+    if (instant != null) {
+      stats.prefixHits.increment();
+      entry.set(input, timezone, instant, entries.last.fractionStart, entries.last.fractionEnd);
+      entries.last = entry;
+      return instant;
+    }
+
+    stats.misses.increment();
+    instant = (timezone == null ? parser.tryParse(input) : parser.tryParseWithTimeZone(input, timezone));
+    if (instant != null) {
+      int fractionStart = parser.fractionStart(input);
+      int fractionEnd = (fractionStart < 0 ? -1 : parser.fractionEnd(input));
+      if (fractionEnd <= fractionStart || fractionEnd - fractionStart > 9) {
+        fractionStart = -1;
+        fractionEnd = -1;
+      }
+      entry.set(input, timezone, instant, fractionStart, fractionEnd);
+      entries.last = entry;
+    }
+    return instant;
+  }
+
+  private static Instant reuseFraction(Entry last, String input, String timezone) {
+    int start = last.fractionStart;
+    int end = last.fractionEnd;
+    if (start < 0 || end == start || last.input.length() != input.length() || !sameTimezone(last, timezone)
+        || !input.regionMatches(0, last.input, 0, start)
+        || !input.regionMatches(end, last.input, end, input.length() - end)) {
+      return null;
+    }
+    int nanos = 0;
+    for (int i = start; i < end; i++) {
+      int digit = input.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return null;
+      }
+      nanos = nanos * 10 + digit;
+    }
+    return Instant.ofEpochSecond(last.instant.getEpochSecond(), nanos * FRACTION_SCALE[end - start]);
+  }
+
+  private static boolean sameTimezone(Entry entry, String timezone) {
+    return timezone == null ? entry.timezone == null : timezone.equals(entry.timezone);
+  }
+
+  static class Stats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder prefixHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    long hits() {
+      return hits.sum();
+    }
+
+    long prefixHits() {
+      return prefixHits.sum();
+    }
+
+    long misses() {
+      return misses.sum();
+    }
+  }
+
+  private static class Entries {
+    final Entry[] table;
+    Entry last;
+
+    Entries(int capacity) {
+      table = new Entry[capacity];
+      for (int i = 0; i < capacity; i++) {
+        table[i] = new Entry();
+      }
+      last = table[0];
+    }
+  }
+
+  private static class Entry {
+    String input;
+    String timezone;
+    Instant instant;
+    int fractionStart = -1;
+    int fractionEnd = -1;
+
+    void set(String input, String timezone, Instant instant, int fractionStart, int fractionEnd) {
+      this.input = input;
+      this.timezone = timezone;
+      this.instant = instant;
+      this.fractionStart = fractionStart;
+      this.fractionEnd = fractionEnd;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import java.time.Instant;
+
+/**
+ * Results of parsing the source field of a batch of events, kept in
+ * primitive arrays indexed like the events.
+ */
+public final class ParsedBatch {
+    private static final ParseExecutionResult[] RESULTS = ParseExecutionResult
+            .values();
+
+    final byte[] results;
+    final long[] epochSeconds;
+    final int[] nanos;
+
+    ParsedBatch(int size) {
+        this.results = new byte[size];
+        this.epochSeconds = new long[size];
+        this.nanos = new int[size];
+    }
+
+    public int size() {
+        return results.length;
+    }
+
+    public ParseExecutionResult result(int index) {
+        return RESULTS[results[index]];
+    }
+
+    public long epochSecond(int index) {
+        return epochSeconds[index];
+    }
+
+    public int nano(int index) {
+        return nanos[index];
+    }
+
+    /**
+     * The parsed time of the event at this index, or null when it was not
+     * successfully parsed.
+     */
+    public Instant instant(int index) {
+        if (result(index) != ParseExecutionResult.SUCCESS) {
+            return null;
+        }
+        return Instant.ofEpochSecond(epochSeconds[index], nanos[index]);
+    }
+
+    void set(int index, ParseExecutionResult result) {
+        results[index] = (byte) result.ordinal();
+    }
+
+    void set(int index, Instant instant) {
+        results[index] = (byte) ParseExecutionResult.SUCCESS.ordinal();
+        epochSeconds[index] = instant.getEpochSecond();
+        nanos[index] = instant.getNano();
+    }
+
+    void copy(int from, int to) {
+        results[to] = results[from];
+        epochSeconds[to] = epochSeconds[from];
+        nanos[to] = nanos[from];
+    }
+}
@@ -20,10 +20,41 @@
 package org.logstash.filters;
 
 import org.logstash.Event;
+import org.logstash.filters.parser.ParserShape;
 
 import java.io.IOException;
 import java.time.Instant;
 
 interface ParserExecutor {
+  /**
+   * Returns null when the input cannot be parsed by this executor, so the
+   * next one can be tried without an exception having been thrown.
+   */
   Instant execute(Object input, Event event) throws IOException;
+
+  ParserShape shape();
+
+  /**
+   * Parses the input like execute, but with the parser itself, leaving any
+   * cache alone, and with the system zone when the zone comes from the
+   * event. Only for warming up.
+   */
+  Instant warmUp(Object input);
+
+  /**
+   * Why the input, which execute did not parse, does not match. Only called
+   * for a few sampled failures, so it may parse the input again and catch
+   * what is thrown.
+   */
+  default String explain(Object input, Event event) {
+    return "no match";
+  }
+
+  /**
+   * Whether the result also depends on the event the input comes from (e.g.
+   * a timezone taken from one of its fields), and not only on the input.
+   */
+  default boolean dependsOnEvent() {
+    return false;
+  }
 }
@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Instant;
+
+import org.logstash.Timestamp;
+
+/**
+ * Builds Timestamps keeping the nanoseconds of the parsed value, on the
+ * Logstash versions whose Timestamp can hold them (the ones with a
+ * Timestamp(Instant) constructor). Older ones only store milliseconds.
+ */
+final class PreciseTimestamps {
+    private static final MethodHandle FROM_INSTANT = findConstructor();
+
+    private PreciseTimestamps() {
+    }
+
+    private static MethodHandle findConstructor() {
+        try {
+            return MethodHandles.publicLookup().findConstructor(
+                    Timestamp.class,
+                    MethodType.methodType(void.class, Instant.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    static boolean available() {
+        return FROM_INSTANT != null;
+    }
+
+    /**
+     * The Timestamp for this instant, with its nanoseconds when available and
+     * truncated to the millisecond otherwise.
+     */
+    static Timestamp of(Instant instant) {
+        if (FROM_INSTANT == null) {
+            return new Timestamp(instant.toEpochMilli());
+        }
+        try {
+            return (Timestamp) FROM_INSTANT.invokeExact(instant);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -25,4 +25,11 @@ import org.logstash.Event;
 
 interface ResultSetter {
   void set(Event event, Instant instant);
+
+  /**
+   * Same as set(Event, Instant), for results kept as primitives.
+   */
+  default void set(Event event, long epochSecond, int nano) {
+    set(event, Instant.ofEpochSecond(epochSecond, nano));
+  }
 }
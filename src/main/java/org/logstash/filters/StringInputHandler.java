@@ -27,12 +27,21 @@ import java.time.Instant;
 
 class StringInputHandler implements InputHandler {
   private TimestampParser parser;
+  private ParseCache cache;
 
   public StringInputHandler(TimestampParser parser) {
+    this(parser, null);
+  }
+
+  public StringInputHandler(TimestampParser parser, ParseCache cache) {
     this.parser = parser;
+    this.cache = cache;
   }
 
-  public Instant handle(String input, Event event) throws IOException {
-    return this.parser.parse(input);
+  public Instant handle(CharSequence input, Event event) throws IOException {
+    if (cache != null && input instanceof String) {
+      return cache.parse(this.parser, (String) input, null);
+    }
+    return this.parser.tryParse(input);
   }
 }
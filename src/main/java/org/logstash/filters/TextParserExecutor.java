@@ -20,30 +20,82 @@
 package org.logstash.filters;
 
 import org.logstash.Event;
+import org.logstash.filters.parser.ParserShape;
 import org.logstash.filters.parser.TimestampParser;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.time.ZoneId;
 
 class TextParserExecutor implements ParserExecutor {
   private InputHandler handler;
+  private ParserShape shape;
+  private TimestampParser parser;
+  private String timeZone;
+  // Set when the parser also takes numbers, which do not need the zone.
+  private NumericParserExecutor numbers;
 
   public TextParserExecutor(TimestampParser parser, String timeZone) {
+    this(parser, timeZone, null);
+  }
+
+  public TextParserExecutor(TimestampParser parser, String timeZone, ParseCache cache) {
+    this(parser, timeZone, cache, false);
+  }
+
+  public TextParserExecutor(TimestampParser parser, String timeZone, ParseCache cache, boolean numbers) {
+    this.shape = numbers ? parser.shape() : parser.shape().textOnly();
+    this.parser = parser;
+    this.timeZone = timeZone;
+    if (numbers) {
+      this.numbers = new NumericParserExecutor(parser);
+    }
     if (timeZone != null && timeZone.contains("%{")) {
-      this.handler = new DynamicTzInputHandler(parser, timeZone);
+      this.handler = new DynamicTzInputHandler(parser, timeZone, cache);
     } else {
-      this.handler = new StringInputHandler(parser);
+      this.handler = new StringInputHandler(parser, cache);
     }
   }
 
   public Instant execute(Object input, Event event) throws IOException {
-    if (!(input instanceof String)) {
-      throw new IllegalArgumentException("Cannot parse date for value of type " + input.getClass().getName());
+    if (!(input instanceof CharSequence)) {
+      return numbers != null ? numbers.execute(input, event) : null;
     }
-    return this.execute((String) input, event);
+    return this.execute((CharSequence) input, event);
   }
 
-  private Instant execute(String input, Event event) throws IOException {
+  private Instant execute(CharSequence input, Event event) throws IOException {
     return this.handler.handle(input, event);
   }
+
+  public Instant warmUp(Object input) {
+    if (!(input instanceof CharSequence)) {
+      return numbers != null ? numbers.warmUp(input) : null;
+    }
+    return parser.warmUp((CharSequence) input, dependsOnEvent() ? ZoneId.systemDefault().getId() : null);
+  }
+
+  public String explain(Object input, Event event) {
+    if (!(input instanceof CharSequence)) {
+      return numbers != null ? numbers.explain(input, event) : "not a string";
+    }
+    try {
+      if (dependsOnEvent()) {
+        parser.parseWithTimeZone(input.toString(), event.sprintf(timeZone));
+      } else {
+        parser.parse(input.toString());
+      }
+    } catch (Exception e) {
+      return FailureSamples.reason(e);
+    }
+    return "no match";
+  }
+
+  public ParserShape shape() {
+    return shape;
+  }
+
+  public boolean dependsOnEvent() {
+    return handler instanceof DynamicTzInputHandler;
+  }
 }
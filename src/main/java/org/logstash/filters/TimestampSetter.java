@@ -25,7 +25,27 @@ import org.logstash.Event;
 import org.logstash.Timestamp;
 
 class TimestampSetter implements ResultSetter {
+    private final boolean nanoseconds;
+
+    TimestampSetter() {
+        this(false);
+    }
+
+    TimestampSetter(boolean nanoseconds) {
+        this.nanoseconds = nanoseconds;
+    }
+
     public void set(Event event, Instant instant) {
-        event.setTimestamp(new Timestamp(instant.toEpochMilli()));
+        event.setTimestamp(nanoseconds ? PreciseTimestamps.of(instant)
+                : new Timestamp(instant.toEpochMilli()));
+    }
+
+    public void set(Event event, long epochSecond, int nano) {
+        if (nanoseconds) {
+            set(event, Instant.ofEpochSecond(epochSecond, nano));
+        } else {
+            event.setTimestamp(new Timestamp(
+                    Math.multiplyExact(epochSecond, 1000) + nano / 1000000));
+        }
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A read-only view of a range of ASCII bytes as characters, so values that
+ * arrive as bytes can be parsed without being decoded into a String first.
+ */
+final class AsciiBytes implements CharSequence {
+  private final byte[] bytes;
+  private final int offset;
+  private final int length;
+
+  private AsciiBytes(byte[] bytes, int offset, int length) {
+    this.bytes = bytes;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * A view of the range when it is only made of ASCII bytes, its UTF-8
+   * decoding otherwise.
+   */
+  static CharSequence of(byte[] bytes, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > bytes.length) {
+      throw new IndexOutOfBoundsException(
+          "offset " + offset + ", length " + length + " of " + bytes.length);
+    }
+    for (int i = offset; i < offset + length; i++) {
+      if (bytes[i] < 0) {
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+      }
+    }
+    return new AsciiBytes(bytes, offset, length);
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+    }
+    return (char) bytes[offset + index];
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    if (start < 0 || end > length || start > end) {
+      throw new IndexOutOfBoundsException(
+          "start " + start + ", end " + end + ", length " + length);
+    }
+    return new AsciiBytes(bytes, offset + start, end - start);
+  }
+
+  @Override
+  public String toString() {
+    return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+  }
+}
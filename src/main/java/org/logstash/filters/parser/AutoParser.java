@@ -0,0 +1,308 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The "AUTO" format: detects which of a list of well known layouts a value
+ * is in, and remembers the answer for every value with the same skeleton.
+ *
+ * The skeleton of a value is the value with every digit replaced by '9' and
+ * every run of ASCII letters by a single 'a', so "2017-06-01 10:23:19,123"
+ * and "Jun  1 10:23:19" have the skeletons "9999-99-99 99:99:99,999" and
+ * "a  9 99:99:99". The first value of a skeleton is tried against every
+ * layout in order; later ones go straight to the layout that matched it.
+ *
+ * Strings of digits are Unix epochs, in milliseconds when they have 12 or
+ * more digits and no fraction, in seconds otherwise. Numbers follow the same
+ * rule: integers of magnitude 10^11 and above are milliseconds.
+ */
+public class AutoParser implements TimestampParser {
+  // Layouts tried after ISO8601, in order. Day-month-year and month-day-year
+  // layouts made of digits only are left out on purpose: they are ambiguous.
+  static final String[] PATTERNS = {
+      "yyyy-MM-dd HH:mm:ss Z",
+      "yyyy-MM-dd HH:mm:ss.SSS Z",
+      "yyyy/MM/dd HH:mm:ss",
+      "yyyy/MM/dd HH:mm:ss.SSS",
+      "dd/MMM/yyyy:HH:mm:ss Z",
+      "dd-MMM-yyyy HH:mm:ss",
+      "dd-MMM-yyyy HH:mm:ss.SSS",
+      "MMM dd HH:mm:ss",
+      "MMM  d HH:mm:ss",
+      "MMM dd yyyy HH:mm:ss",
+      "EEE MMM dd HH:mm:ss yyyy",
+      "EEE MMM  d HH:mm:ss yyyy",
+      "EEE MMM dd HH:mm:ss zzz yyyy",
+      "EEE, dd MMM yyyy HH:mm:ss Z",
+      "EEE, dd MMM yyyy HH:mm:ss z",
+      "yyMMdd HH:mm:ss",
+  };
+
+  private static final int MAX_SKELETON_LENGTH = 64;
+  private static final int MAX_SKELETONS = 1024;
+  private static final long MIN_EPOCH_MILLIS = 100_000_000_000L;
+
+  private final String timezone;
+  private final TimestampParser[] layouts;
+  private final TimestampParser seconds = new UnixEpochParser();
+  private final TimestampParser millis = new UnixMillisEpochParser();
+  private final TimestampParser tai64n = new TAI64NParser();
+  private final ConcurrentHashMap<String, TimestampParser> bySkeleton = new ConcurrentHashMap<>();
+
+  public AutoParser(Locale locale, String timezone, CoarseClock clock) {
+    this.timezone = timezone;
+    this.layouts = new TimestampParser[PATTERNS.length + 1];
+    this.layouts[0] = new CasualISO8601Parser(timezone);
+    for (int i = 0; i < PATTERNS.length; i++) {
+      layouts[i + 1] = TimestampParserFactory.build(PATTERNS[i], locale, timezone, clock);
+    }
+  }
+
+  @Override
+  public Instant parse(String value) {
+    return parseWithTimeZone(value, timezone);
+  }
+
+  @Override
+  public Instant parse(Long value) {
+    return parse(value.longValue());
+  }
+
+  @Override
+  public Instant parse(long value) {
+    return (Math.abs(value) >= MIN_EPOCH_MILLIS ? millis : seconds).parse(value);
+  }
+
+  @Override
+  public Instant parse(Double value) {
+    return seconds.parse(value);
+  }
+
+  @Override
+  public Instant parse(double value) {
+    return seconds.parse(value);
+  }
+
+  @Override
+  public Instant parse(BigDecimal value) {
+    return seconds.parse(value);
+  }
+
+  @Override
+  public Instant parseWithTimeZone(String value, String timezone) {
+    Instant instant = tryParseWithTimeZone(value, timezone);
+    if (instant == null) {
+      throw new IllegalArgumentException(
+          "Cannot detect the format of \"" + value + "\". Cannot parse date.");
+    }
+    return instant;
+  }
+
+  @Override
+  public Instant tryParse(String value) {
+    return tryParseWithTimeZone(value, timezone);
+  }
+
+  @Override
+  public Instant tryParse(Long value) {
+    return tryParse(value.longValue());
+  }
+
+  @Override
+  public Instant tryParse(long value) {
+    return (Math.abs(value) >= MIN_EPOCH_MILLIS ? millis : seconds).tryParse(value);
+  }
+
+  @Override
+  public Instant tryParse(Double value) {
+    return seconds.tryParse(value);
+  }
+
+  @Override
+  public Instant tryParse(double value) {
+    return seconds.tryParse(value);
+  }
+
+  @Override
+  public Instant tryParse(BigDecimal value) {
+    return seconds.tryParse(value);
+  }
+
+  @Override
+  public Instant tryParseWithTimeZone(String value, String timezone) {
+    return tryParseWithTimeZone((CharSequence) value, timezone);
+  }
+
+  @Override
+  public Instant tryParse(CharSequence value) {
+    return tryParseWithTimeZone(value, timezone);
+  }
+
+  @Override
+  public Instant tryParseWithTimeZone(CharSequence value, String timezone) {
+    return tryParse(value, timezone, true);
+  }
+
+  @Override
+  public Instant warmUp(CharSequence value, String timezone) {
+    return tryParse(value, timezone == null ? this.timezone : timezone, false);
+  }
+
+  /**
+   * Detects the layout of the value, remembering it for its skeleton when
+   * learning.
+   */
+  private Instant tryParse(CharSequence value, String timezone, boolean learn) {
+    if (value.length() > 0 && value.charAt(0) == '@') {
+      // TAI64N labels are hex, their skeletons would be as varied as the values.
+      return tai64n.tryParse(value);
+    }
+    String skeleton = skeleton(value);
+    if (skeleton == null) {
+      return detect(value, timezone, null);
+    }
+    TimestampParser parser = bySkeleton.get(skeleton);
+    if (parser != null) {
+      Instant instant = parser.tryParseWithTimeZone(value, timezone);
+      if (instant != null) {
+        return instant;
+      }
+      // Out of range for the layout (a 13th month...), or a value that
+      // happens to share its skeleton with another layout: try the others,
+      // but keep what the first value of the skeleton taught us.
+      return detect(value, timezone, parser);
+    }
+    parser = numeric(skeleton);
+    if (parser != null) {
+      Instant instant = parser.tryParse(value);
+      if (instant != null && learn) {
+        remember(skeleton, parser);
+      }
+      return instant;
+    }
+    for (TimestampParser layout : layouts) {
+      Instant instant = layout.tryParseWithTimeZone(value, timezone);
+      if (instant != null) {
+        if (learn) {
+          remember(skeleton, layout);
+        }
+        return instant;
+      }
+    }
+    return null;
+  }
+
+  private Instant detect(CharSequence value, String timezone, TimestampParser skip) {
+    for (TimestampParser layout : layouts) {
+      if (layout != skip) {
+        Instant instant = layout.tryParseWithTimeZone(value, timezone);
+        if (instant != null) {
+          return instant;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Number of skeletons whose layout is known.
+   */
+  int skeletons() {
+    return bySkeleton.size();
+  }
+
+  private void remember(String skeleton, TimestampParser parser) {
+    if (bySkeleton.size() < MAX_SKELETONS) {
+      bySkeleton.putIfAbsent(skeleton, parser);
+    }
+  }
+
+  /**
+   * The epoch parser for a skeleton of the form [+-]9+[.9+], null for any
+   * other skeleton.
+   */
+  private TimestampParser numeric(String skeleton) {
+    int i = 0;
+    if (skeleton.charAt(0) == '-' || skeleton.charAt(0) == '+') {
+      i++;
+    }
+    int integerStart = i;
+    while (i < skeleton.length() && skeleton.charAt(i) == '9') {
+      i++;
+    }
+    int integerDigits = i - integerStart;
+    if (integerDigits == 0) {
+      return null;
+    }
+    if (i == skeleton.length()) {
+      return integerDigits >= 12 ? millis : seconds;
+    }
+    if (skeleton.charAt(i) != '.' || i + 1 == skeleton.length()) {
+      return null;
+    }
+    for (i++; i < skeleton.length(); i++) {
+      if (skeleton.charAt(i) != '9') {
+        return null;
+      }
+    }
+    return seconds;
+  }
+
+  @Override
+  public boolean dependsOnClock() {
+    // Some layouts have no year.
+    return true;
+  }
+
+  /**
+   * The skeleton of the value, null when empty or too long to be worth
+   * remembering.
+   */
+  static String skeleton(CharSequence value) {
+    int length = value.length();
+    if (length == 0 || length > MAX_SKELETON_LENGTH) {
+      return null;
+    }
+    char[] chars = new char[length];
+    int size = 0;
+    boolean inLetters = false;
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c >= '0' && c <= '9') {
+        chars[size++] = '9';
+        inLetters = false;
+      } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+        if (!inLetters) {
+          chars[size++] = 'a';
+          inLetters = true;
+        }
+      } else {
+        chars[size++] = c;
+        inLetters = false;
+      }
+    }
+    return new String(chars, 0, size);
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+/**
+ * Proleptic Gregorian calendar arithmetic on primitives, so the hot parsing
+ * paths can go from fields to epoch values without building java.time objects.
+ */
+final class CalendarMath {
+  static final int SECONDS_PER_DAY = 86400;
+
+  private CalendarMath() {
+  }
+
+  static boolean isLeapYear(int year) {
+    return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  static int lengthOfMonth(int year, int month) {
+    switch (month) {
+      case 2:
+        return isLeapYear(year) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /**
+   * Days since 1970-01-01 for the given date, same result as
+   * LocalDate.of(year, month, day).toEpochDay().
+   */
+  static long daysFromCivil(int year, int month, int day) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  /**
+   * Reads {@code count} ASCII digits starting at {@code pos}. Returns -1 when
+   * the input is too short or any of the characters is not a digit.
+   */
+  static int digits(CharSequence value, int pos, int count) {
+    if (pos < 0 || pos + count > value.length()) {
+      return -1;
+    }
+    int result = 0;
+    for (int i = pos; i < pos + count; i++) {
+      int d = value.charAt(i) - '0';
+      if (d < 0 || d > 9) {
+        return -1;
+      }
+      result = result * 10 + d;
+    }
+    return result;
+  }
+
+  /**
+   * Whether {@code value} has {@code prefix} at {@code pos}, like
+   * String.startsWith for any CharSequence.
+   */
+  static boolean startsWith(CharSequence value, String prefix, int pos) {
+    if (pos < 0 || pos + prefix.length() > value.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (value.charAt(pos + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
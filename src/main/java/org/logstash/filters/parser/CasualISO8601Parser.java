@@ -20,47 +20,62 @@
 package org.logstash.filters.parser;
 
 import java.math.BigDecimal;
+import java.text.Format;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
 import java.util.Locale;
 
 /**
  * Created by jls on 11/2/16.
  */
 public class CasualISO8601Parser implements TimestampParser {
-    private DateTimeFormatter zonedDTParser = new DateTimeFormatterBuilder()
-            .optionalStart()
-            .appendPattern(
-                    "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD]['T'[HHmmss][HHmm][HH:mm:ss][HH:mm][.SSSSSSSSS][.SSSSSS][.SSS][.SS][.S]][OOOO][O][z][XXXXX][XXXX]['['VV']']")
-            .optionalEnd().optionalStart().optionalStart()
-            .appendPattern(
-                    "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD][ [HHmmss][HHmm][HH:mm:ss][HH:mm][.SSSSSSSSS][.SSSSSS][.SSS][.SS][.S]][OOOO][O][z][XXXXX][XXXX]['['VV']']")
-            .optionalEnd().optionalStart().optionalStart()
-            .appendPattern(
-                    "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD]['T'[HHmmss][HHmm][HH:mm:ss][HH:mm][,SSSSSSSSS][,SSSSSS][,SSS][,SS][,S]][OOOO][O][z][XXXXX][XXXX]['['VV']']")
-            .optionalEnd().optionalStart()
-            .appendPattern(
-                    "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD][ [HHmmss][HHmm][HH:mm:ss][HH:mm][,SSSSSSSSS][,SSSSSS][,SSS][,SS][,S]][OOOO][O][z][XXXXX][XXXX]['['VV']']")
-            .optionalEnd().toFormatter(Locale.ENGLISH);
-    private DateTimeFormatter localDTParser = new DateTimeFormatterBuilder()
-            .optionalStart()
-            .appendPattern(
-                    "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD]['T'[HHmmss][HHmm][HH:mm:ss][HH:mm][.SSSSSSSSS][.SSSSSS][.SSS][.SS][.S]]")
-            .optionalEnd().optionalStart().optionalStart()
-            .appendPattern(
-                    "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD][ [HHmmss][HHmm][HH:mm:ss][HH:mm][.SSSSSSSSS][.SSSSSS][.SSS][.SS][.S]]")
-            .optionalEnd().optionalStart().optionalStart()
-            .appendPattern(
-                    "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD]['T'[HHmmss][HHmm][HH:mm:ss][HH:mm][,SSSSSSSSS][,SSSSSS][,SSS][,SS][,S]]")
-            .optionalEnd().optionalStart()
-            .appendPattern(
-                    "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD][ [HHmmss][HHmm][HH:mm:ss][HH:mm][,SSSSSSSSS][,SSSSSS][,SSS][,SS][,S]]")
-            .optionalEnd().toFormatter(Locale.ENGLISH);
-    private String timezone = null;
+    /**
+     * The catch-all formatters are expensive to build and only needed for
+     * values the hand-written common shapes do not handle, so they are
+     * built once, on first use, and shared by every instance.
+     */
+    private static final class Formatters {
+        static final DateTimeFormatter ZONED = new DateTimeFormatterBuilder()
+                .optionalStart()
+                .appendPattern(
+                        "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD]['T'[HHmmss][HHmm][HH:mm:ss][HH:mm][.SSSSSSSSS][.SSSSSS][.SSS][.SS][.S]][OOOO][O][z][XXXXX][XXXX]['['VV']']")
+                .optionalEnd().optionalStart().optionalStart()
+                .appendPattern(
+                        "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD][ [HHmmss][HHmm][HH:mm:ss][HH:mm][.SSSSSSSSS][.SSSSSS][.SSS][.SS][.S]][OOOO][O][z][XXXXX][XXXX]['['VV']']")
+                .optionalEnd().optionalStart().optionalStart()
+                .appendPattern(
+                        "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD]['T'[HHmmss][HHmm][HH:mm:ss][HH:mm][,SSSSSSSSS][,SSSSSS][,SSS][,SS][,S]][OOOO][O][z][XXXXX][XXXX]['['VV']']")
+                .optionalEnd().optionalStart()
+                .appendPattern(
+                        "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD][ [HHmmss][HHmm][HH:mm:ss][HH:mm][,SSSSSSSSS][,SSSSSS][,SSS][,SS][,S]][OOOO][O][z][XXXXX][XXXX]['['VV']']")
+                .optionalEnd().toFormatter(Locale.ENGLISH);
+        static final DateTimeFormatter LOCAL = new DateTimeFormatterBuilder()
+                .optionalStart()
+                .appendPattern(
+                        "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD]['T'[HHmmss][HHmm][HH:mm:ss][HH:mm][.SSSSSSSSS][.SSSSSS][.SSS][.SS][.S]]")
+                .optionalEnd().optionalStart().optionalStart()
+                .appendPattern(
+                        "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD][ [HHmmss][HHmm][HH:mm:ss][HH:mm][.SSSSSSSSS][.SSSSSS][.SSS][.SS][.S]]")
+                .optionalEnd().optionalStart().optionalStart()
+                .appendPattern(
+                        "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD]['T'[HHmmss][HHmm][HH:mm:ss][HH:mm][,SSSSSSSSS][,SSSSSS][,SSS][,SS][,S]]")
+                .optionalEnd().optionalStart()
+                .appendPattern(
+                        "[yyyyMMdd][yyyy-MM-dd][yyyy-DDD][ [HHmmss][HHmm][HH:mm:ss][HH:mm][,SSSSSSSSS][,SSSSSS][,SSS][,SS][,S]]")
+                .optionalEnd().toFormatter(Locale.ENGLISH);
+        static final Format ZONED_FORMAT = ZONED.toFormat();
+        static final Format LOCAL_FORMAT = LOCAL.toFormat();
+    }
+
+    private final String timezone;
 
     public CasualISO8601Parser(String timezone) {
         this.timezone = timezone;
@@ -92,23 +107,291 @@ public class CasualISO8601Parser implements TimestampParser {
                         + "). Cannot parse date.");
     }
 
+    @Override
+    public Instant tryParse(String value) {
+        return this.tryParseWithTimeZone(value, this.timezone);
+    }
+
+    @Override
+    public Instant tryParse(Long value) {
+        return null;
+    }
+
+    @Override
+    public Instant tryParse(Double value) {
+        return null;
+    }
+
+    @Override
+    public Instant tryParse(BigDecimal value) {
+        return null;
+    }
+
+    @Override
+    public Instant tryParseWithTimeZone(String value, String timezone) {
+        return this.tryParseWithTimeZone((CharSequence) value, timezone);
+    }
+
+    @Override
+    public Instant tryParse(CharSequence value) {
+        return this.tryParseWithTimeZone(value, this.timezone);
+    }
+
+    /**
+     * The common shapes are read from the characters; only the values left
+     * to the formatters are turned into a String.
+     */
+    @Override
+    public Instant tryParseWithTimeZone(CharSequence chars, String timezone) {
+        try {
+            Instant instant = parseCommonShapes(chars, timezone);
+            if (instant != null) {
+                return instant;
+            }
+
+            String value = chars.toString();
+            // Each formatter parses the value once, resolving what it parsed
+            // rather than parsing again.
+            TemporalAccessor parsed = Jsr310Parser
+                    .parseResolved(Formatters.ZONED_FORMAT, value);
+            if (parsed != null) {
+                try {
+                    if (parsed.query(TemporalQueries.zone()) != null) {
+                        return ZonedDateTime.from(parsed).toInstant();
+                    }
+                    ZoneId zone = findZone(timezone);
+                    if (zone == null) {
+                        return null;
+                    }
+                    return toInstant(LocalDateTime.from(parsed), zone);
+                } catch (DateTimeException ignore) {
+                    // Continue to parse...
+                }
+            }
+
+            ZoneId zone = findZone(timezone);
+            if (zone == null) {
+                return null;
+            }
+            parsed = Jsr310Parser.parseResolved(Formatters.LOCAL_FORMAT,
+                    value);
+            if (parsed == null) {
+                return null;
+            }
+            return toInstant(LocalDateTime.from(parsed), zone);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public ParserShape shape() {
+        // Both formatters need a time, which comes after a 'T' or a space.
+        return ParserShape.of(false, null, "T ");
+    }
+
+    @Override
+    public int fractionStart(String value) {
+        // Only for the extended yyyy-MM-ddTHH:mm:ss.S shape.
+        if (value.length() > 20 && value.charAt(4) == '-'
+                && value.charAt(7) == '-'
+                && (value.charAt(10) == 'T' || value.charAt(10) == ' ')
+                && value.charAt(13) == ':' && value.charAt(16) == ':'
+                && (value.charAt(19) == '.' || value.charAt(19) == ',')
+                && CalendarMath.digits(value, 11, 2) <= 23) {
+            return 20;
+        }
+        return -1;
+    }
+
+    @Override
+    public int fractionEnd(String value) {
+        if (fractionStart(value) < 0) {
+            return -1;
+        }
+        int end = 20;
+        while (end < value.length() && value.charAt(end) >= '0'
+                && value.charAt(end) <= '9') {
+            end++;
+        }
+        return (end - 20 > 9 ? -1 : end);
+    }
+
     @Override
     public Instant parseWithTimeZone(String value, String timezone) {
+        Instant instant = parseCommonShapes(value, timezone);
+        if (instant != null) {
+            return instant;
+        }
+
         try {
             ZonedDateTime dtDateTime = ZonedDateTime
-                    .from(zonedDTParser.parse(value));
+                    .from(Formatters.ZONED.parse(value));
             return dtDateTime.toInstant();
         } catch (Exception ignore) {
             // Continue to parse...
         }
 
+        return parseLocal(value, timezone);
+    }
+
+    private Instant parseLocal(String value, String timezone) {
         LocalDateTime dtDateTime = LocalDateTime
-                .from(localDTParser.parse(value));
-        if (timezone != null) {
-            return dtDateTime.atZone(ZoneId.of(timezone)).toInstant();
+                .from(Formatters.LOCAL.parse(value));
+        ZoneId zone = (timezone != null ? ZoneIdCache.of(timezone)
+                : ZoneId.systemDefault());
+        return toInstant(dtDateTime, zone);
+    }
+
+    private static Instant toInstant(LocalDateTime dtDateTime, ZoneId zone) {
+        return Instant.ofEpochSecond(ZoneOffsetTable.of(zone)
+                .toEpochSecond(dtDateTime.toEpochSecond(ZoneOffset.UTC)),
+                dtDateTime.getNano());
+    }
+
+    private static ZoneId findZone(String timezone) {
+        return timezone != null ? ZoneIdCache.find(timezone)
+                : ZoneId.systemDefault();
+    }
+
+    /**
+     * Scans the common shapes straight from the characters: yyyy-MM-dd or
+     * yyyyMMdd, a 'T' or space, HH:mm[:ss] or HHmm[ss], 1-9 fractional digits
+     * after '.' or ',' following HH:mm:ss and an optional Z, +-HH:MM or +-HHMM
+     * offset.
+     *
+     * Returns null for anything else (ordinal dates, zone names, bracketed
+     * zones, out of range fields...) so the formatters above handle it with
+     * their exact semantics.
+     */
+    private static Instant parseCommonShapes(CharSequence value, String timezone) {
+        int length = value.length();
+        int year = CalendarMath.digits(value, 0, 4);
+        // yyyy is the year of era, which has no year 0: left to the
+        // formatters, which reject it.
+        if (year < 1 || length < 8) {
+            return null;
+        }
+
+        int month;
+        int day;
+        int pos;
+        if (value.charAt(4) == '-') {
+            if (length < 10 || value.charAt(7) != '-') {
+                return null;
+            }
+            month = CalendarMath.digits(value, 5, 2);
+            day = CalendarMath.digits(value, 8, 2);
+            pos = 10;
         } else {
-            return dtDateTime.atZone(ZoneId.systemDefault()).toInstant();
+            month = CalendarMath.digits(value, 4, 2);
+            day = CalendarMath.digits(value, 6, 2);
+            pos = 8;
+        }
+        if (month < 1 || month > 12 || day < 1
+                || day > CalendarMath.lengthOfMonth(year, month)) {
+            return null;
+        }
+
+        // A date without a time is rejected by both formatters.
+        if (pos >= length
+                || (value.charAt(pos) != 'T' && value.charAt(pos) != ' ')) {
+            return null;
+        }
+        pos++;
+
+        int hour = CalendarMath.digits(value, pos, 2);
+        int minute;
+        int second = 0;
+        boolean extendedSeconds = false;
+        pos += 2;
+        if (pos < length && value.charAt(pos) == ':') {
+            minute = CalendarMath.digits(value, pos + 1, 2);
+            pos += 3;
+            if (pos < length && value.charAt(pos) == ':') {
+                second = CalendarMath.digits(value, pos + 1, 2);
+                extendedSeconds = true;
+                pos += 3;
+            }
+        } else {
+            minute = CalendarMath.digits(value, pos, 2);
+            pos += 2;
+            int basicSecond = CalendarMath.digits(value, pos, 2);
+            if (basicSecond >= 0) {
+                second = basicSecond;
+                pos += 2;
+            }
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0
+                || second > 59) {
+            return null;
         }
-    }
 
+        // The formatters only take a fraction after HH:mm:ss.
+        int nanos = 0;
+        if (extendedSeconds && pos < length
+                && (value.charAt(pos) == '.' || value.charAt(pos) == ',')) {
+            int start = ++pos;
+            while (pos < length && pos - start < 10) {
+                char c = value.charAt(pos);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                nanos = nanos * 10 + (c - '0');
+                pos++;
+            }
+            int fractionDigits = pos - start;
+            if (fractionDigits == 0 || fractionDigits > 9) {
+                return null;
+            }
+            for (int i = fractionDigits; i < 9; i++) {
+                nanos *= 10;
+            }
+        }
+
+        if (pos == length) {
+            // An invalid zone is reported by the formatter path.
+            ZoneId zone = findZone(timezone);
+            if (zone == null) {
+                return null;
+            }
+            long localSecond = CalendarMath.daysFromCivil(year, month, day)
+                    * CalendarMath.SECONDS_PER_DAY + hour * 3600 + minute * 60
+                    + second;
+            return Instant.ofEpochSecond(
+                    ZoneOffsetTable.of(zone).toEpochSecond(localSecond), nanos);
+        }
+
+        int offsetSeconds;
+        char sign = value.charAt(pos);
+        if (sign == 'Z' && pos + 1 == length) {
+            offsetSeconds = 0;
+        } else if (sign == '+' || sign == '-') {
+            int offsetHours = CalendarMath.digits(value, pos + 1, 2);
+            int offsetMinutes;
+            if (length == pos + 6 && value.charAt(pos + 3) == ':') {
+                offsetMinutes = CalendarMath.digits(value, pos + 4, 2);
+            } else if (length == pos + 5) {
+                offsetMinutes = CalendarMath.digits(value, pos + 3, 2);
+            } else {
+                return null;
+            }
+            if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0
+                    || offsetMinutes > 59
+                    || (offsetHours == 18 && offsetMinutes > 0)) {
+                return null;
+            }
+            offsetSeconds = offsetHours * 3600 + offsetMinutes * 60;
+            if (sign == '-') {
+                offsetSeconds = -offsetSeconds;
+            }
+        } else {
+            return null;
+        }
+
+        long epochSecond = CalendarMath.daysFromCivil(year, month, day)
+                * CalendarMath.SECONDS_PER_DAY + hour * 3600 + minute * 60
+                + second - offsetSeconds;
+        return Instant.ofEpochSecond(epochSecond, nanos);
+    }
 }
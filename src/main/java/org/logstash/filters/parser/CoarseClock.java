@@ -0,0 +1,120 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The current time, to the second, as seen by the parsers guessing the year
+ * of values that do not have one. Reading an instance built on a given clock
+ * does not touch that clock: the time only moves when {@link #refresh()} is
+ * called, which the date filter does once per batch of events with its own
+ * instance. The shared {@link #system()} instance, only used by the parsers
+ * built without a clock outside of any filter, where nothing would refresh
+ * it, reads the system clock instead.
+ *
+ * The current year and month are computed once per zone and month, not per
+ * value.
+ */
+public final class CoarseClock {
+  private static final int MAX_ZONES = 1024;
+  private static final CoarseClock SYSTEM = new CoarseClock(Clock.systemUTC(), true);
+
+  private final Clock clock;
+  private final boolean live;
+  private final ConcurrentHashMap<ZoneId, CurrentMonth> months = new ConcurrentHashMap<>();
+  private volatile long epochSecond;
+
+  public CoarseClock(Clock clock) {
+    this(clock, false);
+  }
+
+  private CoarseClock(Clock clock, boolean live) {
+    this.clock = clock;
+    this.live = live;
+    this.epochSecond = Math.floorDiv(clock.millis(), 1000);
+  }
+
+  /**
+   * The instance following the system clock, shared by the parsers that are
+   * not given one. Filters do not use it: they refresh their own instance.
+   */
+  public static CoarseClock system() {
+    return SYSTEM;
+  }
+
+  public void refresh() {
+    if (live) {
+      return;
+    }
+    long second = Math.floorDiv(clock.millis(), 1000);
+    if (second != epochSecond) {
+      epochSecond = second;
+    }
+  }
+
+  public long epochSecond() {
+    if (live) {
+      // As cheap as System.currentTimeMillis().
+      return Math.floorDiv(clock.millis(), 1000);
+    }
+    return epochSecond;
+  }
+
+  CurrentMonth currentMonth(ZoneId zone) {
+    long now = epochSecond();
+    CurrentMonth month = months.get(zone);
+    if (month == null || now < month.start || now >= month.end) {
+      month = CurrentMonth.at(now, zone);
+      if (months.size() >= MAX_ZONES) {
+        months.clear();
+      }
+      months.put(zone, month);
+    }
+    return month;
+  }
+
+  /**
+   * A month in a given zone, with the epoch seconds it starts and ends at.
+   */
+  static final class CurrentMonth {
+    final int year;
+    final int month;
+    final long start;
+    final long end;
+
+    private CurrentMonth(int year, int month, long start, long end) {
+      this.year = year;
+      this.month = month;
+      this.start = start;
+      this.end = end;
+    }
+
+    static CurrentMonth at(long epochSecond, ZoneId zone) {
+      LocalDate first = Instant.ofEpochSecond(epochSecond).atZone(zone).toLocalDate().withDayOfMonth(1);
+      return new CurrentMonth(first.getYear(), first.getMonthValue(), first.atStartOfDay(zone).toEpochSecond(),
+          first.plusMonths(1).atStartOfDay(zone).toEpochSecond());
+    }
+  }
+}
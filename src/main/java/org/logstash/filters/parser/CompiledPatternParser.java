@@ -0,0 +1,515 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import java.time.Instant;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A Jsr310Parser for fixed width patterns such as "yyyy-MM-dd HH:mm:ss.SSS",
+ * "dd/MMM/yyyy:HH:mm:ss Z" or "MMM dd HH:mm:ss".
+ *
+ * The pattern is compiled once into a list of fields read at known positions,
+ * month names are matched against a table built from the locale, and the
+ * epoch value is computed arithmetically. Any input that does not fit the
+ * compiled shape exactly is handed to the DateTimeFormatter of the parent
+ * class, so results and errors are the same as before.
+ */
+public class CompiledPatternParser extends Jsr310Parser {
+    private static final int LITERAL = 0;
+    private static final int YEAR = 1;
+    private static final int REDUCED_YEAR = 2;
+    private static final int MONTH = 3;
+    private static final int MONTH_TEXT = 4;
+    private static final int DAY = 5;
+    private static final int HOUR = 6;
+    private static final int MINUTE = 7;
+    private static final int SECOND = 8;
+    private static final int FRACTION = 9;
+    private static final int OFFSET = 10;
+
+    private static final int[] FRACTION_SCALE = { 1, 100000000, 10000000,
+            1000000, 100000, 10000, 1000, 100, 10, 1 };
+
+    private final int[] kinds;
+    private final int[] widths;
+    private final String[] literals;
+    private final String[] monthNames;
+    // Only known when every field has a fixed width, -1 otherwise.
+    private final int fixedLength;
+    private final int fractionOffset;
+    private final int fractionWidth;
+    private final int hourOffset;
+
+    private CompiledPatternParser(String pattern, Locale locale,
+            String timezone, CoarseClock clock, List<Field> fields,
+            String[] monthNames) {
+        super(pattern, locale, timezone, clock);
+        this.kinds = new int[fields.size()];
+        this.widths = new int[fields.size()];
+        this.literals = new String[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            kinds[i] = fields.get(i).kind;
+            widths[i] = fields.get(i).width;
+            literals[i] = fields.get(i).literal;
+        }
+        this.monthNames = monthNames;
+
+        int offset = 0;
+        int fraction = -1;
+        int fractionWidth = 0;
+        int hour = -1;
+        for (int i = 0; i < kinds.length && offset >= 0; i++) {
+            if (kinds[i] == MONTH_TEXT) {
+                offset = -1;
+            } else if (kinds[i] == LITERAL) {
+                offset += literals[i].length();
+            } else {
+                if (kinds[i] == FRACTION) {
+                    // Only a literal that cannot continue its digits may
+                    // follow the fraction, so that its width is certain.
+                    boolean last = (i + 1 == kinds.length);
+                    if (last || (kinds[i + 1] == LITERAL
+                            && !Character.isDigit(literals[i + 1].charAt(0)))) {
+                        fraction = offset;
+                        fractionWidth = widths[i];
+                    }
+                } else if (kinds[i] == HOUR) {
+                    hour = offset;
+                }
+                offset += widths[i];
+            }
+        }
+        this.fixedLength = offset;
+        this.fractionOffset = (offset < 0 ? -1 : fraction);
+        this.fractionWidth = fractionWidth;
+        this.hourOffset = hour;
+    }
+
+    /**
+     * Compiles the pattern, or returns null when it has a field that is not
+     * fixed width (or that this class does not know about).
+     */
+    public static CompiledPatternParser compile(String pattern,
+            Locale locale, String timezone) {
+        return compile(pattern, locale, timezone, CoarseClock.system());
+    }
+
+    public static CompiledPatternParser compile(String pattern,
+            Locale locale, String timezone, CoarseClock clock) {
+        Locale effectiveLocale = (locale == null ? Locale.ENGLISH : locale);
+        List<Field> fields = analyze(pattern);
+        if (fields == null) {
+            return null;
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        String[] monthNames = null;
+        for (Field field : fields) {
+            if (field.kind == LITERAL) {
+                continue;
+            }
+            int key = (field.kind == REDUCED_YEAR ? YEAR
+                    : field.kind == MONTH_TEXT ? MONTH : field.kind);
+            if (!seen.add(key)) {
+                return null;
+            }
+            if (field.kind == MONTH_TEXT) {
+                monthNames = monthNames(effectiveLocale,
+                        field.width == 3 ? TextStyle.SHORT : TextStyle.FULL);
+                if (monthNames == null) {
+                    return null;
+                }
+            }
+        }
+        if (!seen.contains(MONTH) || !seen.contains(DAY)
+                || !seen.contains(HOUR) || !seen.contains(MINUTE)
+                || (seen.contains(FRACTION) && !seen.contains(SECOND))) {
+            return null;
+        }
+
+        CompiledPatternParser parser = new CompiledPatternParser(pattern,
+                locale, timezone, clock, fields, monthNames);
+        // A quoted 'Z' or 'y' literal flips these flags in the parent class;
+        // keep its (failing) behavior for such patterns.
+        if (parser.hasZone() != seen.contains(OFFSET)
+                || parser.hasYear() != seen.contains(YEAR)) {
+            return null;
+        }
+        return parser;
+    }
+
+    @Override
+    public Instant parseWithTimeZone(String value, String timezone) {
+        Instant instant = parseFields(value,
+                hasZone() ? null : ZoneIdCache.of(timezone));
+        if (instant != null) {
+            return instant;
+        }
+        return super.parseWithTimeZone(value, timezone);
+    }
+
+    @Override
+    public Instant tryParseWithTimeZone(String value, String timezone) {
+        return tryParseWithTimeZone((CharSequence) value, timezone);
+    }
+
+    /**
+     * The compiled fields are read from the characters; only values they do
+     * not fit are turned into a String for the formatter.
+     */
+    @Override
+    public Instant tryParseWithTimeZone(CharSequence value, String timezone) {
+        ZoneId zone = null;
+        if (!hasZone()) {
+            zone = ZoneIdCache.find(timezone);
+            if (zone == null) {
+                return null;
+            }
+        }
+        Instant instant = parseFields(value, zone);
+        if (instant != null) {
+            return instant;
+        }
+        return super.tryParseWithTimeZone(value.toString(), timezone);
+    }
+
+    /**
+     * Returns null when the value does not fit the compiled fields, in which
+     * case the formatter of the parent class decides.
+     */
+    private Instant parseFields(CharSequence value, ZoneId zone) {
+        int year = hasYear() ? -1 : DEFAULT_YEAR;
+        int month = -1;
+        int day = -1;
+        int hour = -1;
+        int minute = -1;
+        int second = 0;
+        int nanos = 0;
+        int offsetSeconds = 0;
+
+        int length = value.length();
+        int pos = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            int width = widths[i];
+            switch (kinds[i]) {
+            case LITERAL:
+                if (!CalendarMath.startsWith(value, literals[i], pos)) {
+                    return null;
+                }
+                pos += literals[i].length();
+                continue;
+            case MONTH_TEXT:
+                month = matchMonth(value, pos);
+                if (month < 0) {
+                    return null;
+                }
+                pos += monthNames[month - 1].length();
+                continue;
+            case OFFSET:
+                if (pos + 5 > length) {
+                    return null;
+                }
+                char sign = value.charAt(pos);
+                int offsetHours = CalendarMath.digits(value, pos + 1, 2);
+                int offsetMinutes = CalendarMath.digits(value, pos + 3, 2);
+                if ((sign != '+' && sign != '-') || offsetHours < 0
+                        || offsetHours > 18 || offsetMinutes < 0
+                        || offsetMinutes > 59
+                        || (offsetHours == 18 && offsetMinutes > 0)) {
+                    return null;
+                }
+                offsetSeconds = offsetHours * 3600 + offsetMinutes * 60;
+                if (sign == '-') {
+                    offsetSeconds = -offsetSeconds;
+                }
+                pos += 5;
+                continue;
+            default:
+                break;
+            }
+
+            int number = CalendarMath.digits(value, pos, width);
+            if (number < 0) {
+                return null;
+            }
+            pos += width;
+            switch (kinds[i]) {
+            case YEAR:
+                // The formatter would keep reading a longer year.
+                if (i + 1 < kinds.length && kinds[i + 1] == LITERAL
+                        && pos < length && value.charAt(pos) >= '0'
+                        && value.charAt(pos) <= '9') {
+                    return null;
+                }
+                year = number;
+                break;
+            case REDUCED_YEAR:
+                year = 2000 + number;
+                break;
+            case MONTH:
+                month = number;
+                break;
+            case DAY:
+                day = number;
+                break;
+            case HOUR:
+                hour = number;
+                break;
+            case MINUTE:
+                minute = number;
+                break;
+            case SECOND:
+                second = number;
+                break;
+            case FRACTION:
+                nanos = number * FRACTION_SCALE[width];
+                break;
+            default:
+                break;
+            }
+        }
+
+        // Out of range or smart-resolved values (Feb 30, 24:00, leap
+        // seconds...) are left to the formatter.
+        if (pos != length || year < 1 || month < 1 || month > 12 || day < 1
+                || day > CalendarMath.lengthOfMonth(year, month) || hour > 23
+                || minute > 59 || second > 59) {
+            return null;
+        }
+
+        if (!hasZone()) {
+            if (!hasYear()) {
+                year = guessYear(month, zone);
+            }
+            long localSecond = CalendarMath.daysFromCivil(year, month, day)
+                    * CalendarMath.SECONDS_PER_DAY + hour * 3600
+                    + minute * 60 + second;
+            return Instant.ofEpochSecond(
+                    ZoneOffsetTable.of(zone).toEpochSecond(localSecond),
+                    nanos);
+        } else if (!hasYear()) {
+            return resolve(ZonedDateTime.of(year, month, day, hour, minute,
+                    second, nanos, ZoneOffset.ofTotalSeconds(offsetSeconds)));
+        } else {
+            long epochSecond = CalendarMath.daysFromCivil(year, month, day)
+                    * CalendarMath.SECONDS_PER_DAY + hour * 3600
+                    + minute * 60 + second - offsetSeconds;
+            return Instant.ofEpochSecond(epochSecond, nanos);
+        }
+    }
+
+    @Override
+    public int fractionStart(String value) {
+        if (fractionOffset < 0 || value.length() != fixedLength
+                || CalendarMath.digits(value, hourOffset, 2) > 23) {
+            return -1;
+        }
+        // The literals must be where the compiled fields expect them.
+        int offset = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            if (kinds[i] == LITERAL) {
+                if (!value.startsWith(literals[i], offset)) {
+                    return -1;
+                }
+                offset += literals[i].length();
+            } else {
+                offset += widths[i];
+            }
+        }
+        return fractionOffset;
+    }
+
+    @Override
+    public int fractionEnd(String value) {
+        return fractionStart(value) < 0 ? -1 : fractionOffset + fractionWidth;
+    }
+
+    @Override
+    public ParserShape shape() {
+        // Signs may come with the offset or a year exceeding its width.
+        StringBuilder alphabet = new StringBuilder("0123456789+-");
+        List<String> required = new ArrayList<>();
+        for (String literal : literals) {
+            if (literal != null) {
+                alphabet.append(literal);
+                for (int i = 0; i < literal.length(); i++) {
+                    required.add(String.valueOf(literal.charAt(i)));
+                }
+            }
+        }
+        if (monthNames != null) {
+            for (String name : monthNames) {
+                alphabet.append(name);
+            }
+        }
+        return ParserShape.of(false, alphabet.toString(),
+                required.toArray(new String[0]));
+    }
+
+    private int matchMonth(CharSequence value, int pos) {
+        int match = -1;
+        int matchLength = 0;
+        for (int i = 0; i < monthNames.length; i++) {
+            String name = monthNames[i];
+            if (name.length() > matchLength
+                    && CalendarMath.startsWith(value, name, pos)) {
+                match = i + 1;
+                matchLength = name.length();
+            }
+        }
+        return match;
+    }
+
+    private static String[] monthNames(Locale locale, TextStyle style) {
+        DateTimeFormatter formatter = new DateTimeFormatterBuilder()
+                .appendText(ChronoField.MONTH_OF_YEAR, style)
+                .toFormatter(locale);
+        String[] names = new String[12];
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < 12; i++) {
+            names[i] = formatter.format(Month.of(i + 1));
+            if (names[i].isEmpty() || !distinct.add(names[i])) {
+                return null;
+            }
+            for (int c = 0; c < names[i].length(); c++) {
+                if (Character.isDigit(names[i].charAt(c))) {
+                    return null;
+                }
+            }
+        }
+        return names;
+    }
+
+    private static List<Field> analyze(String pattern) {
+        List<Field> fields = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (pos < pattern.length()) {
+            char c = pattern.charAt(pos);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+                int count = 1;
+                while (pos + count < pattern.length()
+                        && pattern.charAt(pos + count) == c) {
+                    count++;
+                }
+                pos += count;
+                Field field = letter(c, count);
+                if (field == null) {
+                    return null;
+                }
+                if (literal.length() > 0) {
+                    fields.add(new Field(LITERAL, 0, literal.toString()));
+                    literal.setLength(0);
+                }
+                fields.add(field);
+            } else if (c == '\'') {
+                int end = pos + 1;
+                if (end < pattern.length() && pattern.charAt(end) == '\'') {
+                    literal.append('\'');
+                    pos += 2;
+                    continue;
+                }
+                while (true) {
+                    if (end >= pattern.length()) {
+                        return null;
+                    }
+                    if (pattern.charAt(end) == '\'') {
+                        if (end + 1 < pattern.length()
+                                && pattern.charAt(end + 1) == '\'') {
+                            literal.append('\'');
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    literal.append(pattern.charAt(end));
+                    end++;
+                }
+                pos = end + 1;
+            } else if (c == '[' || c == ']' || c == '{' || c == '}'
+                    || c == '#') {
+                return null;
+            } else {
+                literal.append(c);
+                pos++;
+            }
+        }
+        if (literal.length() > 0) {
+            fields.add(new Field(LITERAL, 0, literal.toString()));
+        }
+        return fields;
+    }
+
+    private static Field letter(char c, int count) {
+        switch (c) {
+        case 'y':
+        case 'u':
+            if (count == 4) {
+                return new Field(YEAR, 4, null);
+            }
+            return count == 2 ? new Field(REDUCED_YEAR, 2, null) : null;
+        case 'M':
+            if (count == 2) {
+                return new Field(MONTH, 2, null);
+            }
+            return count == 3 || count == 4 ? new Field(MONTH_TEXT, count, null)
+                    : null;
+        case 'd':
+            return count == 2 ? new Field(DAY, 2, null) : null;
+        case 'H':
+            return count == 2 ? new Field(HOUR, 2, null) : null;
+        case 'm':
+            return count == 2 ? new Field(MINUTE, 2, null) : null;
+        case 's':
+            return count == 2 ? new Field(SECOND, 2, null) : null;
+        case 'S':
+            return count <= 9 ? new Field(FRACTION, count, null) : null;
+        case 'Z':
+            return count <= 3 ? new Field(OFFSET, 5, null) : null;
+        default:
+            return null;
+        }
+    }
+
+    private static final class Field {
+        final int kind;
+        final int width;
+        final String literal;
+
+        Field(int kind, int width, String literal) {
+            this.kind = kind;
+            this.width = width;
+            this.literal = literal;
+        }
+    }
+}
@@ -20,24 +20,48 @@
 package org.logstash.filters.parser;
 
 import java.math.BigDecimal;
+import java.text.Format;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.Year;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 public class Jsr310Parser implements TimestampParser {
+    // Year used while parsing patterns without one, before guessYear runs.
+    static final int DEFAULT_YEAR = 2017;
+
     private final String timezone;
     private final Locale locale;
     private final boolean hasYear;
     private final boolean hasZone;
     private final DateTimeFormatter parser;
+    // The same, as a Format, whose parseObject tells mismatches by
+    // returning null.
+    private final Format format;
+    private final CoarseClock clock;
+    private final ParserShape shape;
 
     public Jsr310Parser(String pattern, Locale locale, String timezone) {
+        this(pattern, locale, timezone, CoarseClock.system());
+    }
+
+    /**
+     * The clock gives the current year and month used to guess the year of
+     * values parsed with a pattern that does not have one.
+     */
+    public Jsr310Parser(String pattern, Locale locale, String timezone,
+            CoarseClock clock) {
+        this.clock = clock;
         this.timezone = (timezone == null ? ZoneId.systemDefault().getId()
                 : timezone);
         this.locale = (locale == null ? Locale.ENGLISH : locale);
@@ -48,15 +72,17 @@ public class Jsr310Parser implements TimestampParser {
                 || pattern.contains("O") || pattern.contains("x")
                 || pattern.contains("X") || pattern.contains("Z"));
 
+        shape = ParserShape.of(false, null, requiredLiterals(pattern));
+
         if (hasYear) {
             parser = new DateTimeFormatterBuilder().appendPattern(pattern)
                     .toFormatter(this.locale);
         } else {
             parser = new DateTimeFormatterBuilder().appendPattern(pattern)
-                    .parseDefaulting(ChronoField.YEAR_OF_ERA,
-                            Year.parse("2017").getValue())
+                    .parseDefaulting(ChronoField.YEAR_OF_ERA, DEFAULT_YEAR)
                     .toFormatter(this.locale);
         }
+        format = parser.toFormat();
     }
 
     @Override
@@ -88,45 +114,177 @@ public class Jsr310Parser implements TimestampParser {
     @Override
     public Instant parseWithTimeZone(String value, String timezone) {
         if (hasZone) {
-            ZonedDateTime dt = ZonedDateTime.from(parser.parse(value));
-            if (!hasYear) {
-                return dt.with(ChronoField.YEAR_OF_ERA,
-                        guessYear(dt.get(ChronoField.YEAR_OF_ERA),
-                                dt.get(ChronoField.MONTH_OF_YEAR),
-                                dt.getZone()))
-                        .toInstant();
-            } else {
-                return dt.toInstant();
-            }
+            return resolve(ZonedDateTime.from(parser.parse(value)));
         } else {
-            LocalDateTime dt = LocalDateTime.from(parser.parse(value));
-            ZoneId zone = ZoneId.of(timezone);
-            ZonedDateTime zonedDateTime = ZonedDateTime.of(dt, zone);
-            if (!hasYear) {
-                return zonedDateTime.with(ChronoField.YEAR_OF_ERA,
-                        guessYear(Year.now(zone).getValue(),
-                                dt.get(ChronoField.MONTH_OF_YEAR), zone))
-                        .toInstant();
-            } else {
-                return zonedDateTime.toInstant();
+            return resolve(LocalDateTime.from(parser.parse(value)),
+                    ZoneIdCache.of(timezone));
+        }
+    }
+
+    @Override
+    public Instant tryParse(String value) {
+        return this.tryParseWithTimeZone(value, timezone);
+    }
+
+    @Override
+    public Instant tryParse(CharSequence value) {
+        return this.tryParseWithTimeZone(value, timezone);
+    }
+
+    @Override
+    public Instant tryParse(Long value) {
+        return null;
+    }
+
+    @Override
+    public Instant tryParse(Double value) {
+        return null;
+    }
+
+    @Override
+    public Instant tryParse(BigDecimal value) {
+        return null;
+    }
+
+    @Override
+    public Instant tryParseWithTimeZone(String value, String timezone) {
+        // A format mismatch costs no exception; only values that look right
+        // but do not resolve do.
+        TemporalAccessor parsed = parseResolved(format, value);
+        if (parsed == null) {
+            return null;
+        }
+        try {
+            if (hasZone) {
+                return resolve(ZonedDateTime.from(parsed));
             }
+            ZoneId zone = ZoneIdCache.find(timezone);
+            if (zone == null) {
+                return null;
+            }
+            return resolve(LocalDateTime.from(parsed), zone);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public ParserShape shape() {
+        return shape;
+    }
+
+    /**
+     * The literal characters of a pattern that are not in an optional
+     * section, each of which a matching value must contain: the formatter
+     * parses literals case sensitively.
+     */
+    static String[] requiredLiterals(String pattern) {
+        List<String> literals = new ArrayList<>();
+        int optional = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                int end = pattern.indexOf('\'', i + 1);
+                if (end < 0) {
+                    // Rejected by the formatter anyway.
+                    break;
+                }
+                if (end == i + 1) {
+                    // '' is a quote.
+                    if (optional == 0) {
+                        literals.add("'");
+                    }
+                } else if (optional == 0) {
+                    for (int j = i + 1; j < end; j++) {
+                        literals.add(String.valueOf(pattern.charAt(j)));
+                    }
+                }
+                i = end;
+            } else if (c == '[') {
+                optional++;
+            } else if (c == ']') {
+                optional = Math.max(0, optional - 1);
+            } else if (optional == 0 && !(c >= 'a' && c <= 'z')
+                    && !(c >= 'A' && c <= 'Z')) {
+                literals.add(String.valueOf(c));
+            }
+        }
+        return literals.toArray(new String[0]);
+    }
+
+    @Override
+    public boolean dependsOnClock() {
+        // The year of values without one is guessed from today's date.
+        return !hasYear;
+    }
+
+    /**
+     * The fields of the whole value, resolved like the formatter the format
+     * comes from (DateTimeFormatter.toFormat()) resolves them, in a single
+     * pass and without throwing: null when the value does not match or its
+     * fields do not resolve.
+     */
+    static TemporalAccessor parseResolved(Format format, String value) {
+        ParsePosition position = new ParsePosition(0);
+        Object parsed = format.parseObject(value, position);
+        if (parsed == null || position.getIndex() != value.length()) {
+            return null;
+        }
+        return (TemporalAccessor) parsed;
+    }
+
+    boolean hasYear() {
+        return hasYear;
+    }
+
+    boolean hasZone() {
+        return hasZone;
+    }
+
+    /**
+     * Turns a value parsed with an explicit zone into an Instant, guessing the
+     * year when the pattern does not have one.
+     */
+    Instant resolve(ZonedDateTime dt) {
+        if (!hasYear) {
+            return dt.with(ChronoField.YEAR_OF_ERA,
+                    guessYear(dt.getMonthValue(), dt.getZone())).toInstant();
+        } else {
+            return dt.toInstant();
+        }
+    }
+
+    /**
+     * Turns a local value into an Instant using the given zone, guessing the
+     * year when the pattern does not have one.
+     */
+    Instant resolve(LocalDateTime dt, ZoneId zone) {
+        if (!hasYear) {
+            dt = dt.withYear(guessYear(dt.getMonthValue(), zone));
         }
+        return Instant.ofEpochSecond(ZoneOffsetTable.of(zone)
+                .toEpochSecond(dt.toEpochSecond(ZoneOffset.UTC)),
+                dt.getNano());
     }
 
-    private int guessYear(int year, int month, ZoneId zone) {
+    /**
+     * The year of a value with this month, according to the current date in
+     * the zone.
+     */
+    int guessYear(int month, ZoneId zone) {
         // if we get here, we need to do some special handling at the time each
         // event is handled
         // because things like the current year could be different, etc.
-        int currentMonth = ZonedDateTime.now(zone).getMonthValue();
-        if (month == 12 && currentMonth == 1) {
+        CoarseClock.CurrentMonth current = clock.currentMonth(zone);
+        if (month == 12 && current.month == 1) {
             // Now is January, event is December. Assume it's from last year.
-            return year - 1;
-        } else if (month == 1 && currentMonth == 12) {
+            return current.year - 1;
+        } else if (month == 1 && current.month == 12) {
             // Now is December, event is January. Assume it's from next year.
-            return year + 1;
+            return current.year + 1;
         } else {
             // Otherwise, assume it's from this year.
-            return year;
+            return current.year;
         }
     }
 }
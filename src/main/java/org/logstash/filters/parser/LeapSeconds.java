@@ -0,0 +1,78 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+/**
+ * TAI - UTC, in seconds, as published in IERS Bulletin C. Before 1972 the
+ * difference was not a whole number of seconds; like libtai, 10 is used.
+ *
+ * Lookups binary search a primitive array of the TAI times at which each
+ * offset starts, so they cost the same few comparisons for any label.
+ */
+final class LeapSeconds {
+  // UTC dates from which TAI - UTC is the given number of seconds.
+  private static final int[][] STEPS = {
+      { 1972, 1, 10 }, { 1972, 7, 11 }, { 1973, 1, 12 }, { 1974, 1, 13 },
+      { 1975, 1, 14 }, { 1976, 1, 15 }, { 1977, 1, 16 }, { 1978, 1, 17 },
+      { 1979, 1, 18 }, { 1980, 1, 19 }, { 1981, 7, 20 }, { 1982, 7, 21 },
+      { 1983, 7, 22 }, { 1985, 7, 23 }, { 1988, 1, 24 }, { 1990, 1, 25 },
+      { 1991, 1, 26 }, { 1992, 7, 27 }, { 1993, 7, 28 }, { 1994, 7, 29 },
+      { 1996, 1, 30 }, { 1997, 7, 31 }, { 1999, 1, 32 }, { 2006, 1, 33 },
+      { 2009, 1, 34 }, { 2012, 7, 35 }, { 2015, 7, 36 }, { 2017, 1, 37 },
+  };
+
+  // TAI seconds since 1970-01-01T00:00:00 TAI at which each offset starts.
+  private static final long[] STARTS = new long[STEPS.length];
+  private static final int[] OFFSETS = new int[STEPS.length];
+
+  static {
+    for (int i = 0; i < STEPS.length; i++) {
+      OFFSETS[i] = STEPS[i][2];
+      STARTS[i] = CalendarMath.daysFromCivil(STEPS[i][0], STEPS[i][1], 1)
+          * CalendarMath.SECONDS_PER_DAY + OFFSETS[i];
+    }
+  }
+
+  private LeapSeconds() {
+  }
+
+  /**
+   * TAI - UTC at the given TAI time. The inserted second itself (23:59:60)
+   * reads as the first second of the next day.
+   */
+  static int taiMinusUtc(long taiSecond) {
+    int last = STARTS.length - 1;
+    if (taiSecond >= STARTS[last]) {
+      return OFFSETS[last];
+    }
+    int low = 0;
+    int high = last;
+    // The last start at or before taiSecond, or 10 before 1972.
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (STARTS[middle] <= taiSecond) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return OFFSETS[low];
+  }
+}
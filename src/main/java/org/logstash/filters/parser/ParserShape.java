@@ -0,0 +1,183 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+/**
+ * A conservative description of the values a parser can accept, used to
+ * prove that two parsers can never both match the same value, and to skip
+ * the parsers that cannot match a given value without trying them.
+ *
+ * A shape lists the ASCII characters a matching string may contain (or none,
+ * meaning any character may appear), groups of characters of which a
+ * matching string must contain at least one, and the range of lengths of a
+ * matching string. Being conservative is always safe: ANY overlaps with, and
+ * admits, everything.
+ *
+ * Checking a value against a shape goes through its signature, a 64 bit set
+ * of the character classes it contains: each ASCII character belongs to the
+ * class of its code modulo 63, every other character to class 63. Classes
+ * shared by several characters only make the check more permissive.
+ */
+public final class ParserShape {
+  public static final ParserShape ANY = new ParserShape(true, null, false, new String[0], 0, Integer.MAX_VALUE);
+
+  private static final int NON_ASCII_CLASS = 63;
+
+  private final boolean numeric;
+  private final boolean[] alphabet;
+  private final boolean nonAscii;
+  private final String[] required;
+  private final int minLength;
+  private final int maxLength;
+  private final long allowedClasses;
+  private final long[] requiredClasses;
+  private final boolean unrestricted;
+
+  private ParserShape(boolean numeric, boolean[] alphabet, boolean nonAscii, String[] required,
+      int minLength, int maxLength) {
+    this.numeric = numeric;
+    this.alphabet = alphabet;
+    this.nonAscii = nonAscii;
+    this.required = required;
+    this.minLength = minLength;
+    this.maxLength = maxLength;
+
+    long allowed = -1L;
+    if (alphabet != null) {
+      allowed = nonAscii ? 1L << NON_ASCII_CLASS : 0L;
+      for (int c = 0; c < alphabet.length; c++) {
+        if (alphabet[c]) {
+          allowed |= 1L << (c % 63);
+        }
+      }
+    }
+    this.allowedClasses = allowed;
+    this.requiredClasses = new long[required.length];
+    for (int i = 0; i < required.length; i++) {
+      requiredClasses[i] = signature(required[i]);
+    }
+    this.unrestricted = allowed == -1L && required.length == 0
+        && minLength == 0 && maxLength == Integer.MAX_VALUE;
+  }
+
+  /**
+   * @param numeric   whether Long, Double and BigDecimal values can match
+   * @param alphabet  the characters a matching string is made of, null for any
+   * @param required  groups of characters, a matching string contains at least
+   *                  one character of each group
+   */
+  public static ParserShape of(boolean numeric, String alphabet, String... required) {
+    if (alphabet == null) {
+      return new ParserShape(numeric, null, false, required, 0, Integer.MAX_VALUE);
+    }
+    boolean[] chars = new boolean[128];
+    boolean nonAscii = false;
+    for (int i = 0; i < alphabet.length(); i++) {
+      char c = alphabet.charAt(i);
+      if (c < 128) {
+        chars[c] = true;
+      } else {
+        nonAscii = true;
+      }
+    }
+    return new ParserShape(numeric, chars, nonAscii, required, 0, Integer.MAX_VALUE);
+  }
+
+  /**
+   * The same shape, only matching strings of min to max characters.
+   */
+  public ParserShape withLength(int minLength, int maxLength) {
+    return new ParserShape(numeric, alphabet, nonAscii, required, minLength, maxLength);
+  }
+
+  /**
+   * The same shape, without matching non-string values.
+   */
+  public ParserShape textOnly() {
+    return numeric ? new ParserShape(false, alphabet, nonAscii, required, minLength, maxLength) : this;
+  }
+
+  /**
+   * Whether no value can match both this shape and the other one.
+   */
+  public boolean excludes(ParserShape other) {
+    if (this.numeric && other.numeric) {
+      return false;
+    }
+    if (this.maxLength < other.minLength || other.maxLength < this.minLength) {
+      return true;
+    }
+    return other.lacksAnyOf(this.required) || this.lacksAnyOf(other.required);
+  }
+
+  private boolean lacksAnyOf(String[] groups) {
+    if (alphabet == null) {
+      return false;
+    }
+    for (String group : groups) {
+      boolean possible = false;
+      for (int i = 0; i < group.length() && !possible; i++) {
+        char c = group.charAt(i);
+        possible = (c < 128 ? alphabet[c] : nonAscii);
+      }
+      if (!possible) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether no string of this length and signature can match.
+   */
+  public boolean rejects(int length, long signature) {
+    if (unrestricted) {
+      return false;
+    }
+    if (length < minLength || length > maxLength || (signature & ~allowedClasses) != 0) {
+      return true;
+    }
+    for (long classes : requiredClasses) {
+      if ((signature & classes) == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether this shape lets through every string.
+   */
+  public boolean isUnrestricted() {
+    return unrestricted;
+  }
+
+  /**
+   * The character classes found in the value.
+   */
+  public static long signature(CharSequence value) {
+    long signature = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      signature |= 1L << (c < 128 ? c % 63 : NON_ASCII_CLASS);
+    }
+    return signature;
+  }
+}
@@ -21,26 +21,174 @@ package org.logstash.filters.parser;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Arrays;
 
+/**
+ * TAI64N labels (https://cr.yp.to/libtai/tai64.html): 24 hex digits, possibly
+ * after an '@', or the 12 bytes they encode. The first 8 bytes are 2^62 plus
+ * the seconds since 1970-01-01T00:00:00 TAI, the last 4 the nanoseconds.
+ *
+ * By default a label is taken to be UNIX time + 10 seconds, which is how
+ * daemontools' tai64n and most loggers write them from a UTC system clock.
+ * Labels from a clock that really counts TAI seconds need the leap seconds
+ * subtracted, see {@link #TAI64NParser(boolean)}.
+ */
 public class TAI64NParser implements TimestampParser {
+  private static final long TAI64_EPOCH_MASK = (1L << 62) - 1;
+  private static final int TAI_MINUS_UNIX = 10;
+  // Value of each hex digit, -1 for other ASCII characters.
+  private static final byte[] HEX = new byte[128];
+
+  static {
+    Arrays.fill(HEX, (byte) -1);
+    for (int i = 0; i < 10; i++) {
+      HEX['0' + i] = (byte) i;
+    }
+    for (int i = 0; i < 6; i++) {
+      HEX['a' + i] = (byte) (10 + i);
+      HEX['A' + i] = (byte) (10 + i);
+    }
+  }
+
+  private final boolean leapSeconds;
+
+  public TAI64NParser() {
+    this(false);
+  }
+
+  /**
+   * @param leapSeconds whether labels count real TAI seconds, in which case
+   *                    TAI - UTC is looked up in a table of leap seconds
+   *                    instead of being 10 seconds
+   */
+  public TAI64NParser(boolean leapSeconds) {
+    this.leapSeconds = leapSeconds;
+  }
+
   @Override
   public Instant parse(String value) {
-    int offset = 0;
-    if (value.startsWith("@")) {
-      offset = 1;
+    Instant instant = tryParse(value);
+    if (instant == null) {
+      throw new IllegalArgumentException("Invalid TAI64N label (" + value + "). Cannot parse date.");
     }
+    return instant;
+  }
 
-    // https://cr.yp.to/libtai/tai64.html
-    // First 8 bytes (16 hex chars) of TAI64N are seconds. TAI64's unix epoch is at 2^62
-    long secondsSinceEpoch = Long.parseLong(value.substring(offset, 16 + offset), 16) & ((1L << 62) - 1);
-    // last 4 bytes (8 hex chars) of TAI64N are subsecond value in nanoseconds.
-    int nanoseconds = Integer.parseInt(value.substring(16 + offset, 24 + offset), 16);
+  @Override
+  public Instant tryParse(String value) {
+    return tryParse((CharSequence) value);
+  }
 
-    // Compensate for leap seconds to convert TAI to UTC.
-    // XXX: Leap seconds aren't this simple. We need to find out what times each leap second was introduced.
-    secondsSinceEpoch -= 10;
+  /**
+   * Decodes the hex digits in place. Anything may follow them.
+   */
+  @Override
+  public Instant tryParse(CharSequence value) {
+    int offset = value.length() > 0 && value.charAt(0) == '@' ? 1 : 0;
+    if (value.length() < 24 + offset) {
+      return null;
+    }
+    long seconds = 0;
+    for (int i = offset; i < 16 + offset; i++) {
+      int digit = hex(value.charAt(i));
+      if (digit < 0) {
+        return null;
+      }
+      seconds = (seconds << 4) | digit;
+    }
+    long nanos = 0;
+    for (int i = 16 + offset; i < 24 + offset; i++) {
+      int digit = hex(value.charAt(i));
+      if (digit < 0) {
+        return null;
+      }
+      nanos = (nanos << 4) | digit;
+    }
+    return toInstant(seconds, nanos);
+  }
+
+  @Override
+  public Instant tryParseWithTimeZone(CharSequence value, String timezone) {
+    return tryParse(value);
+  }
 
-    return Instant.ofEpochSecond(secondsSinceEpoch, nanoseconds);
+  /**
+   * Twelve bytes are a binary label, anything else text.
+   */
+  @Override
+  public Instant tryParse(byte[] bytes, int offset, int length) {
+    if (length != 12) {
+      return TimestampParser.super.tryParse(bytes, offset, length);
+    }
+    if (offset < 0 || offset + length > bytes.length) {
+      throw new IndexOutOfBoundsException(
+          "offset " + offset + ", length " + length + " of " + bytes.length);
+    }
+    long seconds = 0;
+    for (int i = offset; i < offset + 8; i++) {
+      seconds = (seconds << 8) | (bytes[i] & 0xFF);
+    }
+    long nanos = 0;
+    for (int i = offset + 8; i < offset + 12; i++) {
+      nanos = (nanos << 8) | (bytes[i] & 0xFF);
+    }
+    return toInstant(seconds, nanos);
+  }
+
+  @Override
+  public Instant tryParseWithTimeZone(byte[] bytes, int offset, int length, String timezone) {
+    return tryParse(bytes, offset, length);
+  }
+
+  private static int hex(char c) {
+    return c < 128 ? HEX[c] : -1;
+  }
+
+  private Instant toInstant(long label, long nanos) {
+    // Labels from 2^63 on, and nanoseconds from 2^31 on, have never been
+    // accepted: they used to overflow the signed parsing of each part.
+    if (label < 0 || nanos > Integer.MAX_VALUE) {
+      return null;
+    }
+    long taiSecond = label & TAI64_EPOCH_MASK;
+    int offset = leapSeconds ? LeapSeconds.taiMinusUtc(taiSecond) : TAI_MINUS_UNIX;
+    return Instant.ofEpochSecond(taiSecond - offset, nanos);
+  }
+
+  @Override
+  public Instant tryParse(Long value) {
+    return null;
+  }
+
+  @Override
+  public Instant tryParse(long value) {
+    return null;
+  }
+
+  @Override
+  public Instant tryParse(Double value) {
+    return null;
+  }
+
+  @Override
+  public Instant tryParse(double value) {
+    return null;
+  }
+
+  @Override
+  public Instant tryParse(BigDecimal value) {
+    return null;
+  }
+
+  @Override
+  public Instant tryParseWithTimeZone(String value, String timezone) {
+    return tryParse(value);
+  }
+
+  @Override
+  public ParserShape shape() {
+    // Anything may follow the 24 hex digits.
+    return ParserShape.of(false, null).withLength(24, Integer.MAX_VALUE);
   }
 
   @Override
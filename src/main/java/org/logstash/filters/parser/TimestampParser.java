@@ -28,4 +28,138 @@ public interface TimestampParser {
   Instant parse(Double value);
   Instant parse(BigDecimal value);
   Instant parseWithTimeZone(String value, String timezone);
+
+  /*
+   * Primitive variants, so numeric values do not need to be boxed on their
+   * way to the parsers that handle them.
+   */
+  default Instant parse(long value) {
+    return parse(Long.valueOf(value));
+  }
+
+  default Instant parse(double value) {
+    return parse(Double.valueOf(value));
+  }
+
+  /*
+   * The try* variants return null instead of throwing when the value does not
+   * match, so trying several formats in a row does not cost an exception per
+   * miss. The defaults only catch; the parsers in this package override them
+   * with checks that do not throw in the first place.
+   */
+  default Instant tryParse(String value) {
+    try {
+      return parse(value);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  default Instant tryParse(Long value) {
+    try {
+      return parse(value);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  default Instant tryParse(long value) {
+    return tryParse(Long.valueOf(value));
+  }
+
+  default Instant tryParse(Double value) {
+    try {
+      return parse(value);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  default Instant tryParse(double value) {
+    return tryParse(Double.valueOf(value));
+  }
+
+  default Instant tryParse(BigDecimal value) {
+    try {
+      return parse(value);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  default Instant tryParseWithTimeZone(String value, String timezone) {
+    try {
+      return parseWithTimeZone(value, timezone);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  /*
+   * CharSequence and byte variants, for values that are not a String yet (a
+   * JRuby ByteList, a slice of a buffer...). The parsers in this package read
+   * their common shapes straight from the characters; the defaults make a
+   * String of them.
+   */
+  default Instant tryParse(CharSequence value) {
+    return tryParse(value.toString());
+  }
+
+  default Instant tryParseWithTimeZone(CharSequence value, String timezone) {
+    return tryParseWithTimeZone(value.toString(), timezone);
+  }
+
+  /**
+   * Parses length bytes of UTF-8 (usually ASCII) text from offset. ASCII
+   * bytes are read in place, anything else is decoded first.
+   */
+  default Instant tryParse(byte[] bytes, int offset, int length) {
+    return tryParse(AsciiBytes.of(bytes, offset, length));
+  }
+
+  default Instant tryParseWithTimeZone(byte[] bytes, int offset, int length, String timezone) {
+    return tryParseWithTimeZone(AsciiBytes.of(bytes, offset, length), timezone);
+  }
+
+  /**
+   * What the values accepted by the try* methods look like.
+   */
+  default ParserShape shape() {
+    return ParserShape.ANY;
+  }
+
+  /**
+   * Where the fraction of a second starts in this (successfully parsed) value,
+   * or -1 when unknown. Values differing from it only in the digits from there
+   * parse to the same second, which lets a cache reuse the rest of a result.
+   */
+  default int fractionStart(String value) {
+    return -1;
+  }
+
+  /**
+   * Where the fraction starting at fractionStart ends in this (successfully
+   * parsed) value, or -1 when unknown. It must be exact: a cache reusing the
+   * rest of a result compares every character outside of the fraction.
+   */
+  default int fractionEnd(String value) {
+    return -1;
+  }
+
+  /**
+   * Whether the result also depends on the current time, in which case it
+   * must not be cached.
+   */
+  default boolean dependsOnClock() {
+    return false;
+  }
+
+  /**
+   * Same as tryParseWithTimeZone, or tryParse when the timezone is null, for
+   * warming up: parsers that learn from the values they see do not learn
+   * from these.
+   */
+  default Instant warmUp(CharSequence value, String timezone) {
+    return timezone == null ? tryParse(value) : tryParseWithTimeZone(value, timezone);
+  }
 }
@@ -21,6 +21,9 @@ package org.logstash.filters.parser;
 
 import java.time.ZoneId;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class TimestampParserFactory {
 
@@ -28,11 +31,30 @@ public class TimestampParserFactory {
   private static final String UNIX = "UNIX";
   private static final String UNIX_MS = "UNIX_MS";
   private static final String TAI64N = "TAI64N";
+  private static final String TAI64N_TAI = "TAI64N_TAI";
+  private static final String AUTO = "AUTO";
+
+  /*
+   * Parsers are immutable and thread-safe, so every filter instance (and every
+   * pipeline) configured with the same pattern, locale and zone shares one, built
+   * on the system clock. Parsers guessing years from another clock are not in there,
+   * and neither are AUTO parsers: they learn the layouts of the values they see.
+   * Like ZoneIdCache, the registry is simply cleared when it gets full.
+   */
+  private static final int MAX_PARSERS = 1024;
+  private static final ConcurrentMap<Key, TimestampParser> PARSERS = new ConcurrentHashMap<>();
 
   /*
    * zone is a String because it can be dynamic and come from the event while we parse it.
    */
   public static TimestampParser makeParser(String pattern, Locale locale, String zone) {
+    return makeParser(pattern, locale, zone, CoarseClock.system());
+  }
+
+  /*
+   * The clock is used to guess the year of values parsed with patterns that do not have one.
+   */
+  public static TimestampParser makeParser(String pattern, Locale locale, String zone, CoarseClock clock) {
     if (locale == null) {
       locale = Locale.getDefault();
     }
@@ -45,6 +67,32 @@ public class TimestampParserFactory {
       tz = null;
     }
 
+    if (AUTO.equals(pattern)) {
+      // Each filter learns from its own values.
+      return build(pattern, locale, tz, clock);
+    }
+    Key key = new Key(pattern, locale, tz);
+    TimestampParser parser = PARSERS.get(key);
+    if (parser == null) {
+      parser = build(pattern, locale, tz, CoarseClock.system());
+      if (PARSERS.size() >= MAX_PARSERS) {
+        PARSERS.clear();
+      }
+      TimestampParser shared = PARSERS.putIfAbsent(key, parser);
+      if (shared != null) {
+        parser = shared;
+      }
+    }
+    if (clock != CoarseClock.system() && parser.dependsOnClock()) {
+      return build(pattern, locale, tz, clock);
+    }
+    return parser;
+  }
+
+  /*
+   * A new parser, for a locale and zone already resolved by makeParser.
+   */
+  static TimestampParser build(String pattern, Locale locale, String tz, CoarseClock clock) {
     switch (pattern) {
       case ISO8601: // Short-hand for a few ISO8601-ish formats
         return new CasualISO8601Parser(tz);
@@ -52,10 +100,20 @@ public class TimestampParserFactory {
         return new UnixEpochParser();
       case TAI64N: // TAI64N format
         return new TAI64NParser();
+      case TAI64N_TAI: // TAI64N labels from a clock counting leap seconds
+        return new TAI64NParser(true);
       case UNIX_MS: // Unix epoch in milliseconds
         return new UnixMillisEpochParser();
+      case AUTO: // Any of a list of common formats, detected per value layout
+        return new AutoParser(locale, tz, clock);
       default:
-        return new Jsr310Parser(pattern, locale, tz);
+        // Fixed width patterns get a specialized parser, everything else
+        // goes through DateTimeFormatter.
+        TimestampParser compiled = CompiledPatternParser.compile(pattern, locale, tz, clock);
+        if (compiled != null) {
+          return compiled;
+        }
+        return new Jsr310Parser(pattern, locale, tz, clock);
     }
   }
 
@@ -64,6 +122,49 @@ public class TimestampParserFactory {
   }
 
   public static TimestampParser makeParser(String pattern, String locale, String zone) {
-    return makeParser(pattern, locale == null ? null : Locale.forLanguageTag(locale), zone);
+    return makeParser(pattern, locale, zone, CoarseClock.system());
+  }
+
+  public static TimestampParser makeParser(String pattern, String locale, String zone, CoarseClock clock) {
+    return makeParser(pattern, locale == null ? null : Locale.forLanguageTag(locale), zone, clock);
+  }
+
+  /*
+   * How many parsers are shared, for tests.
+   */
+  static int registered() {
+    return PARSERS.size();
+  }
+
+  private static final class Key {
+    private final String pattern;
+    private final Locale locale;
+    private final String zone;
+    private final int hash;
+
+    Key(String pattern, Locale locale, String zone) {
+      this.pattern = pattern;
+      this.locale = locale;
+      this.zone = zone;
+      this.hash = Objects.hash(pattern, locale, zone);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return pattern.equals(other.pattern) && locale.equals(other.locale)
+          && Objects.equals(zone, other.zone);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
   }
 }
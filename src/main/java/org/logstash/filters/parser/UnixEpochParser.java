@@ -23,32 +23,75 @@ import java.time.Instant;
 
 public class UnixEpochParser implements TimestampParser {
   private static long MAX_EPOCH_SECONDS = (long)Integer.MAX_VALUE;
+  // Seconds beyond this could not be turned into milliseconds, most negative
+  // values are bounded by it.
+  private static final long MAX_MAGNITUDE = Long.MAX_VALUE / 1000;
+  private static final int[] NANOS_SCALE = { 0, 100000000, 10000000, 1000000,
+      100000, 10000, 1000, 100, 10, 1 };
 
   @Override
   public Instant parse(String value) {
-    if (value.contains(".")) {
-      int dot = value.indexOf(".");
-      long seconds = Long.parseLong(value.substring(0, dot));
-      long millis = coerceToMillis(seconds);
-      // Milliseconds today, so we take at most 3 digits after the dot.
-      int subdigits = Math.min(3, (value.length() - dot - 1));
-      assert subdigits >= 0 && subdigits <= 3;
-
-      long subseconds = Long.parseLong(value.substring(dot+1, dot+1+subdigits));
-      switch (subdigits) {
-        case 0:
-          return Instant.ofEpochMilli(millis);
-        case 1:
-          return Instant.ofEpochMilli(millis + subseconds * 100);
-        case 2:
-          return Instant.ofEpochMilli(millis + subseconds * 10);
-        case 3:
-        default:
-          return Instant.ofEpochMilli(millis + subseconds);
+    Instant instant = scan(value);
+    if (instant == null) {
+      throw new IllegalArgumentException("Cannot parse date from UNIX epoch value " + value);
+    }
+    return instant;
+  }
+
+  /**
+   * Reads {@code [+-]digits[.digits]} in a single pass, keeping up to nine
+   * digits of the fraction. Returns null when the value is not such a number,
+   * or is out of range.
+   */
+  static Instant scan(CharSequence value) {
+    int length = value.length();
+    int i = 0;
+    boolean negative = false;
+    if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+      negative = value.charAt(0) == '-';
+      i = 1;
+    }
+
+    int integerStart = i;
+    long seconds = 0;
+    for (; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        break;
+      }
+      if (seconds > MAX_MAGNITUDE) {
+        return null;
+      }
+      seconds = seconds * 10 + (c - '0');
+    }
+    if (i == integerStart || (!negative && seconds > MAX_EPOCH_SECONDS)) {
+      return null;
+    }
+
+    int nanos = 0;
+    if (i < length) {
+      if (value.charAt(i) != '.') {
+        return null;
+      }
+      int fractionStart = ++i;
+      for (; i < length; i++) {
+        char c = value.charAt(i);
+        if (c < '0' || c > '9') {
+          return null;
+        }
+        if (i - fractionStart < 9) {
+          nanos = nanos * 10 + (c - '0');
+        }
+      }
+      int digits = i - fractionStart;
+      if (digits == 0) {
+        return null;
+      }
+      if (digits < 9) {
+        nanos *= NANOS_SCALE[digits];
       }
-    } else {
-      return Instant.ofEpochMilli(coerceToMillis(Long.parseLong(value)));
     }
+    return negative ? Instant.ofEpochSecond(-seconds, -nanos) : Instant.ofEpochSecond(seconds, nanos);
   }
 
   @Override
@@ -56,16 +99,77 @@ public class UnixEpochParser implements TimestampParser {
     return parse(value);
   }
 
+  @Override
+  public Instant tryParse(String value) {
+    return scan(value);
+  }
+
+  @Override
+  public Instant tryParse(CharSequence value) {
+    return scan(value);
+  }
+
+  @Override
+  public Instant tryParseWithTimeZone(CharSequence value, String timezone) {
+    return scan(value);
+  }
+
+  @Override
+  public Instant tryParse(Long value) {
+    return tryParse(value.longValue());
+  }
+
+  @Override
+  public Instant tryParse(long value) {
+    return value > MAX_EPOCH_SECONDS ? null : parse(value);
+  }
+
+  @Override
+  public Instant tryParse(Double value) {
+    return tryParse(value.doubleValue());
+  }
+
+  @Override
+  public Instant tryParse(double value) {
+    return (long)value > MAX_EPOCH_SECONDS ? null : parse(value);
+  }
+
+  @Override
+  public Instant tryParse(BigDecimal value) {
+    return value.longValue() > MAX_EPOCH_SECONDS ? null : parse(value);
+  }
+
+  @Override
+  public Instant tryParseWithTimeZone(String value, String timezone) {
+    return tryParse(value);
+  }
+
+  @Override
+  public ParserShape shape() {
+    return ParserShape.of(true, "0123456789.+-");
+  }
+
   @Override
   public Instant parse(Long value) {
+    return parse(value.longValue());
+  }
+
+  @Override
+  public Instant parse(long value) {
     return Instant.ofEpochMilli(coerceToMillis(value));
   }
 
   @Override
   public Instant parse(Double value) {
-    if (value.longValue() > MAX_EPOCH_SECONDS) {
+    return parse(value.doubleValue());
+  }
+
+  @Override
+  public Instant parse(double value) {
+    if ((long)value > MAX_EPOCH_SECONDS) {
       throw new IllegalArgumentException("Cannot parse date for value larger than UNIX epoch maximum seconds");
     }
+    // A double does not hold much more than milliseconds for today's dates.
     return Instant.ofEpochMilli((long)(value * 1000));
   }
 
@@ -78,9 +182,14 @@ public class UnixEpochParser implements TimestampParser {
 
   @Override
   public Instant parse(BigDecimal value) {
-    if (value.longValue() > MAX_EPOCH_SECONDS) {
+    long seconds = value.longValue();
+    if (seconds > MAX_EPOCH_SECONDS) {
       throw new IllegalArgumentException("Cannot parse date for value larger than UNIX epoch maximum seconds");
     }
-    return Instant.ofEpochMilli(value.scaleByPowerOfTen(3).longValue());
+    if (value.scale() <= 0) {
+      return Instant.ofEpochSecond(seconds);
+    }
+    int nanos = value.subtract(BigDecimal.valueOf(seconds)).movePointRight(9).intValue();
+    return Instant.ofEpochSecond(seconds, nanos);
   }
 }
@@ -32,13 +32,23 @@ public class UnixMillisEpochParser implements TimestampParser {
 
   @Override
   public Instant parse(Long value) {
+    return parse(value.longValue());
+  }
+
+  @Override
+  public Instant parse(long value) {
     return Instant.ofEpochMilli(value);
   }
 
   @Override
   public Instant parse(Double value) {
+    return parse(value.doubleValue());
+  }
+
+  @Override
+  public Instant parse(double value) {
     // XXX: Should we accept a double?
-    return parse(value.longValue());
+    return parse((long)value);
   }
 
   @Override
@@ -46,6 +56,79 @@ public class UnixMillisEpochParser implements TimestampParser {
     return parse(value);
   }
 
+  @Override
+  public Instant tryParse(String value) {
+    return tryParse((CharSequence) value);
+  }
+
+  @Override
+  public Instant tryParse(CharSequence value) {
+    int length = value.length();
+    char first = length > 0 ? value.charAt(0) : 0;
+    int start = first == '-' || first == '+' ? 1 : 0;
+    int digits = length - start;
+    if (digits == 0) {
+      return null;
+    }
+    long millis = 0;
+    for (int i = start; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return null;
+      }
+      millis = millis * 10 + (c - '0');
+    }
+    if (digits < 19) {
+      return parse(first == '-' ? -millis : millis);
+    }
+    // Might overflow a long, let Long.parseLong decide.
+    try {
+      return parse(value.toString());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public Instant tryParseWithTimeZone(CharSequence value, String timezone) {
+    return tryParse(value);
+  }
+
+  @Override
+  public Instant tryParse(Long value) {
+    return parse(value.longValue());
+  }
+
+  @Override
+  public Instant tryParse(long value) {
+    return parse(value);
+  }
+
+  @Override
+  public Instant tryParse(Double value) {
+    return parse(value.doubleValue());
+  }
+
+  @Override
+  public Instant tryParse(double value) {
+    return parse(value);
+  }
+
+  @Override
+  public Instant tryParse(BigDecimal value) {
+    return value.longValue() > MAX_EPOCH_MILLISECONDS ? null : parse(value);
+  }
+
+  @Override
+  public Instant tryParseWithTimeZone(String value, String timezone) {
+    return tryParse(value);
+  }
+
+  @Override
+  public ParserShape shape() {
+    return ParserShape.of(true, "0123456789+-");
+  }
+
   @Override
   public Instant parse(BigDecimal value) {
     long lv = value.longValue();
@@ -0,0 +1,166 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Values of a given time in a format, for parsing something realistic before
+ * the first events come, so formatter internals, zone rules and compiled code
+ * are ready by then. An instance is made once per format and gives values for
+ * any number of times.
+ */
+public final class WarmUpValues {
+  private static final DateTimeFormatter ISO_OFFSET =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.ROOT);
+  private static final DateTimeFormatter ISO_LOCAL =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss,SSS", Locale.ROOT);
+  private static final long TAI64_EPOCH = 0x4000000000000000L;
+
+  private final String format;
+  private final ZoneId zone;
+  // Pattern formatters, built once: for a pattern format, or the layouts of AUTO.
+  private final DateTimeFormatter[] patterns;
+
+  private WarmUpValues(String format, ZoneId zone, DateTimeFormatter[] patterns) {
+    this.format = format;
+    this.zone = zone;
+    this.patterns = patterns;
+  }
+
+  /**
+   * For a format (a pattern or one of the named formats) configured with the
+   * given locale and timezone. The zone is resolved, and its rules loaded,
+   * right away.
+   */
+  public static WarmUpValues of(String format, Locale locale, String timezone) {
+    List<DateTimeFormatter> patterns = new ArrayList<>();
+    switch (format) {
+      case "ISO8601":
+      case "UNIX":
+      case "UNIX_MS":
+      case "TAI64N":
+      case "TAI64N_TAI":
+        break;
+      case "AUTO":
+        for (String pattern : AutoParser.PATTERNS) {
+          addPattern(patterns, pattern, locale);
+        }
+        break;
+      default:
+        addPattern(patterns, format, locale);
+    }
+    return new WarmUpValues(format, zone(timezone), patterns.toArray(new DateTimeFormatter[0]));
+  }
+
+  /**
+   * The zone values in formats without an offset are written in, resolved
+   * like TimestampParserFactory does: the system zone when none is given or
+   * when it comes from the event, and also when it is invalid. Its rules are
+   * loaded on the way.
+   */
+  static ZoneId zone(String timezone) {
+    ZoneId zone = null;
+    if (timezone != null && !timezone.contains("%{")) {
+      zone = ZoneIdCache.find(timezone);
+    }
+    if (zone == null) {
+      zone = ZoneId.systemDefault();
+    }
+    ZoneOffsetTable.of(zone);
+    return zone;
+  }
+
+  ZoneId zone() {
+    return zone;
+  }
+
+  /**
+   * The instant written as the format would have it, in a few variants when
+   * the format takes several. Empty when the pattern cannot format, which
+   * some parse-only patterns cannot.
+   */
+  public List<Object> at(Instant instant) {
+    List<Object> values = new ArrayList<>();
+    long seconds = instant.getEpochSecond();
+    switch (format) {
+      case "ISO8601":
+        addIso8601(values, instant);
+        break;
+      case "UNIX":
+        addUnix(values, instant);
+        break;
+      case "UNIX_MS":
+        values.add(Long.toString(instant.toEpochMilli()));
+        values.add(instant.toEpochMilli());
+        break;
+      case "TAI64N":
+      case "TAI64N_TAI":
+        values.add(String.format(Locale.ROOT, "@%016x%08x", TAI64_EPOCH + seconds + 10, instant.getNano()));
+        break;
+      case "AUTO":
+        addIso8601(values, instant);
+        addUnix(values, instant);
+        break;
+      default:
+        break;
+    }
+    ZonedDateTime dateTime = instant.atZone(zone);
+    for (DateTimeFormatter pattern : patterns) {
+      try {
+        values.add(pattern.format(dateTime));
+      } catch (DateTimeException e) {
+        // Not a pattern that formats, the parser is left cold.
+      }
+    }
+    return values;
+  }
+
+  private void addIso8601(List<Object> values, Instant instant) {
+    ZonedDateTime dateTime = instant.atZone(zone);
+    values.add(instant.toString());
+    values.add(ISO_OFFSET.format(dateTime));
+    values.add(ISO_LOCAL.format(dateTime));
+  }
+
+  private static void addUnix(List<Object> values, Instant instant) {
+    long seconds = instant.getEpochSecond();
+    values.add(Long.toString(seconds));
+    values.add(seconds + "." + String.format(Locale.ROOT, "%03d", instant.getNano() / 1_000_000));
+    values.add(seconds);
+    values.add(BigDecimal.valueOf(instant.toEpochMilli(), 3).doubleValue());
+  }
+
+  private static void addPattern(List<DateTimeFormatter> patterns, String pattern, Locale locale) {
+    try {
+      patterns.add(DateTimeFormatter.ofPattern(pattern, locale));
+    } catch (IllegalArgumentException e) {
+      // Not a pattern DateTimeFormatter takes, the parser is left cold.
+    }
+  }
+}
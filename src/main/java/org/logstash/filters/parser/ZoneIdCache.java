@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JVM wide cache of ZoneId lookups, so timezones coming from the events are
+ * not parsed and looked up in the zone rules provider on every event.
+ *
+ * Invalid IDs are cached too. The cache is bounded: when it gets full it is
+ * simply cleared, which only costs new lookups.
+ */
+public final class ZoneIdCache {
+  private static final int MAX_SIZE = 1024;
+  private static final ConcurrentHashMap<String, Optional<ZoneId>> CACHE = new ConcurrentHashMap<>();
+
+  private ZoneIdCache() {
+  }
+
+  /**
+   * Returns the zone for this ID, or null when the ID is invalid.
+   */
+  public static ZoneId find(String id) {
+    Optional<ZoneId> zone = CACHE.get(id);
+    if (zone == null) {
+      try {
+        zone = Optional.of(ZoneId.of(id));
+      } catch (DateTimeException e) {
+        zone = Optional.empty();
+      }
+      if (CACHE.size() >= MAX_SIZE) {
+        CACHE.clear();
+      }
+      CACHE.put(id, zone);
+    }
+    return zone.orElse(null);
+  }
+
+  /**
+   * Like ZoneId.of, throws a DateTimeException when the ID is invalid.
+   */
+  public static ZoneId of(String id) {
+    ZoneId zone = find(id);
+    if (zone == null) {
+      throw new DateTimeException("Invalid time-zone ID: " + id);
+    }
+    return zone;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts local date-times to epoch seconds with a binary search over the
+ * offset transitions of a zone, instead of going through ZoneRules and
+ * ZonedDateTime for every value. Tables are shared across the JVM.
+ *
+ * A table covers two years around the time it was built; values outside of
+ * that window go through ZonedDateTime as before. The result is the same as
+ * ZonedDateTime.of(localDateTime, zone):
+ * <ul>
+ * <li>in a gap (spring forward), the offset before the transition is used,
+ * i.e. the time is moved later by the length of the gap;</li>
+ * <li>in an overlap (fall back), the offset before the transition is used,
+ * i.e. the earlier of the two instants.</li>
+ * </ul>
+ * So for each transition, local times below {@code instant + max(before,
+ * after)} use the offset before it, and the ones from there use the offset
+ * after it.
+ */
+public final class ZoneOffsetTable {
+  private static final long WINDOW_SECONDS = 2 * 366 * 86400L;
+  // Local times are at most 18 hours away from UTC.
+  private static final long MARGIN_SECONDS = 86400L;
+  private static final ConcurrentHashMap<ZoneId, ZoneOffsetTable> TABLES = new ConcurrentHashMap<>();
+
+  private final ZoneId zone;
+  private final long windowStart;
+  private final long windowEnd;
+  private final long rebuildAfter;
+  private final long[] boundaries;
+  private final int[] offsets;
+
+  private ZoneOffsetTable(ZoneId zone, long windowStart, long windowEnd, long rebuildAfter, long[] boundaries,
+                          int[] offsets) {
+    this.zone = zone;
+    this.windowStart = windowStart;
+    this.windowEnd = windowEnd;
+    this.rebuildAfter = rebuildAfter;
+    this.boundaries = boundaries;
+    this.offsets = offsets;
+  }
+
+  public static ZoneOffsetTable of(ZoneId zone) {
+    ZoneOffsetTable table = TABLES.get(zone);
+    if (table == null) {
+      table = build(zone, Instant.now().getEpochSecond());
+      TABLES.put(zone, table);
+    }
+    return table;
+  }
+
+  /**
+   * Epoch seconds of the given local date-time, expressed as seconds since
+   * 1970-01-01T00:00:00 local time.
+   */
+  public long toEpochSecond(long localSecond) {
+    if (localSecond < windowStart || localSecond >= windowEnd) {
+      return outsideWindow(localSecond);
+    }
+    int found = Arrays.binarySearch(boundaries, localSecond);
+    int index = (found >= 0 ? found + 1 : -found - 1);
+    return localSecond - offsets[index];
+  }
+
+  private long outsideWindow(long localSecond) {
+    // Slide the window along with the clock, for long running processes.
+    if (localSecond >= windowEnd && Instant.now().getEpochSecond() > rebuildAfter) {
+      TABLES.put(zone, build(zone, Instant.now().getEpochSecond()));
+    }
+    LocalDateTime dateTime = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+    return ZonedDateTime.of(dateTime, zone).toEpochSecond();
+  }
+
+  static ZoneOffsetTable build(ZoneId zone, long now) {
+    ZoneRules rules = zone.getRules();
+    if (rules.isFixedOffset()) {
+      int offset = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+      return new ZoneOffsetTable(zone, Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, new long[0],
+          new int[] { offset });
+    }
+
+    long start = now - WINDOW_SECONDS;
+    long end = now + WINDOW_SECONDS;
+    List<ZoneOffsetTransition> transitions = new ArrayList<>();
+    ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(start - MARGIN_SECONDS));
+    while (transition != null && transition.toEpochSecond() <= end + MARGIN_SECONDS) {
+      transitions.add(transition);
+      transition = rules.nextTransition(transition.getInstant());
+    }
+
+    long[] boundaries = new long[transitions.size()];
+    int[] offsets = new int[transitions.size() + 1];
+    offsets[0] = rules.getOffset(Instant.ofEpochSecond(start - MARGIN_SECONDS)).getTotalSeconds();
+    for (int i = 0; i < transitions.size(); i++) {
+      ZoneOffsetTransition t = transitions.get(i);
+      int before = t.getOffsetBefore().getTotalSeconds();
+      int after = t.getOffsetAfter().getTotalSeconds();
+      boundaries[i] = t.toEpochSecond() + Math.max(before, after);
+      offsets[i + 1] = after;
+      if (i > 0 && boundaries[i] <= boundaries[i - 1]) {
+        // Transitions too close to each other, leave it to ZoneRules.
+        return new ZoneOffsetTable(zone, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, new long[0], new int[0]);
+      }
+    }
+    return new ZoneOffsetTable(zone, start, end, now + WINDOW_SECONDS / 2, boundaries, offsets);
+  }
+}
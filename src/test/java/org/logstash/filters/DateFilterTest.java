@@ -1,10 +1,15 @@
 package org.logstash.filters;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -69,6 +74,8 @@ public class DateFilterTest {
         };
         DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
                 "[nano_ts]", failtagList);
+        subject.setClock(Clock.fixed(Instant.parse("2017-06-01T00:00:00Z"),
+                ZoneOffset.UTC));
         subject.acceptFilterConfig("MMM dd HH:mm:ss.SSS", loc, "%{mytz}");
         for (Map.Entry<String, List<String>> entry : testElements.entrySet()) {
             applyStringTz(subject, entry.getKey(), entry.getValue().get(0),
@@ -110,6 +117,28 @@ public class DateFilterTest {
         }
     }
 
+    @Test
+    public void testInterpolatedTzFailures() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                null, failtagList);
+        subject.acceptFilterConfig("yyyy-MM-dd HH:mm:ss", loc, "%{mytz}");
+        subject.acceptFilterConfig("ISO8601", loc, "%{mytz}");
+        for (int i = 0; i < 2; i++) {
+            Event event = new Event();
+            event.setField("[happened_at]", "2001-01-01 00:00:00");
+            event.setField("mytz", "Not/AZone");
+            Assert.assertSame(ParseExecutionResult.FAIL,
+                    subject.executeParsers(event));
+        }
+        Event event = new Event();
+        event.setField("[happened_at]", "2001-01-01 00:00:00");
+        Assert.assertSame(ParseExecutionResult.FAIL,
+                subject.executeParsers(event));
+        // Values with an offset do not need the timezone.
+        applyStringTz(subject, "2001-01-01T00:00:00+01:00",
+                "2000-12-31T23:00:00.000Z", null, "Not/AZone");
+    }
+
     @Test
     public void testTai64Strings() throws Exception {
         Map<String, List<String>> testElements = new HashMap<String, List<String>>() {
@@ -152,6 +181,303 @@ public class DateFilterTest {
         }
     }
 
+    @Test
+    public void testUnixStringFractions() throws Exception {
+        Map<String, List<String>> testElements = new HashMap<String, List<String>>() {
+            {
+                put("1350414944.123456",
+                        Arrays.asList("2012-10-16T19:15:44.123Z",
+                                "2012-10-16T19:15:44.123456000Z"));
+                put("1350414944.123456789",
+                        Arrays.asList("2012-10-16T19:15:44.123Z",
+                                "2012-10-16T19:15:44.123456789Z"));
+                put("1350414944.1234567891",
+                        Arrays.asList("2012-10-16T19:15:44.123Z",
+                                "2012-10-16T19:15:44.123456789Z"));
+                put("-1.5", Arrays.asList("1969-12-31T23:59:58.500Z",
+                        "1969-12-31T23:59:58.500000000Z"));
+            }
+        };
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                "[nano_ts]", failtagList);
+        subject.acceptFilterConfig("UNIX", loc, tz);
+        for (Map.Entry<String, List<String>> entry : testElements.entrySet()) {
+            applyString(subject, entry.getKey(), entry.getValue().get(0),
+                    entry.getValue().get(1));
+        }
+        for (String invalid : Arrays.asList("", "-", "1.", ".5", "1.2.3",
+                "12a", "1.5e3", "99999999999")) {
+            Event event = new Event();
+            event.setField("[happened_at]", invalid);
+            Assert.assertEquals(invalid, ParseExecutionResult.FAIL,
+                    subject.executeParsers(event));
+        }
+    }
+
+    @Test
+    public void testNanoSecondEpochFormat() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                "[nano_ts]", failtagList);
+        subject.setNanoSecondFormat("UNIX_NS");
+        subject.acceptFilterConfig("ISO8601", loc, tz);
+        Event event = new Event();
+        event.setField("[happened_at]", "2016-11-03T21:10:57.456789012Z");
+        Assert.assertEquals(ParseExecutionResult.SUCCESS,
+                subject.executeParsers(event));
+        Assert.assertEquals(1478207457456789012L,
+                event.getField("[nano_ts]"));
+    }
+
+    @Test
+    public void testNanosecondTimestamps() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                "[nano_ts]", failtagList);
+        Assert.assertEquals(PreciseTimestamps.available(),
+                subject.setNanosecondTimestamps(true));
+        Assert.assertTrue(subject.setNanosecondTimestamps(false));
+        subject.acceptFilterConfig("ISO8601", loc, tz);
+        applyString(subject, "2016-11-03T21:10:57.456789Z",
+                "2016-11-03T21:10:57.456Z", "2016-11-03T21:10:57.456789000Z");
+    }
+
+    @Test
+    public void testParseBatch() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                "[nano_ts]", failtagList);
+        subject.acceptFilterConfig("UNIX", loc, tz);
+        subject.acceptFilterConfig("ISO8601", loc, tz);
+        Object[] inputs = { "2001-12-07T23:54:54.123456Z", 1478207457L,
+                "2001-12-07T23:54:54.123456Z", "not a date", null,
+                "1478207457.5", 1478207457L, "not a date", "cancelled" };
+        Event[] events = new Event[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            events[i] = new Event();
+            if (inputs[i] != null) {
+                events[i].setField("[happened_at]", inputs[i]);
+            }
+        }
+        events[8].cancel();
+
+        ParsedBatch batch = subject.parseBatch(events);
+        Assert.assertEquals(inputs.length, batch.size());
+        for (int i = 0; i < inputs.length; i++) {
+            Assert.assertEquals(subject.executeParsers(events[i]),
+                    batch.result(i));
+            Timestamp expected = (Timestamp) events[i].getField("[result_ts]");
+            Instant instant = batch.instant(i);
+            if (expected == null) {
+                Assert.assertNull(instant);
+            } else {
+                Assert.assertEquals(expected.getTime(), instant.toEpochMilli());
+                Assert.assertEquals(events[i].getField("[nano_ts]"),
+                        NanoSecondTimestampFieldSetter.format(instant));
+            }
+        }
+        Assert.assertEquals(Instant.parse("2001-12-07T23:54:54.123456Z"),
+                batch.instant(2));
+    }
+
+    @Test
+    public void testParseBatchInParallel() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                null, failtagList);
+        subject.setParallelThreshold(1000);
+        subject.acceptFilterConfig("UNIX", loc, tz);
+        subject.acceptFilterConfig("yyyy-MM-dd HH:mm:ss", loc, "%{mytz}");
+        Event[] events = new Event[5000];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new Event();
+            if (i % 3 == 0) {
+                events[i].setField("[happened_at]", Long.toString(i % 700));
+            } else {
+                events[i].setField("[happened_at]", String.format(
+                        "2017-06-01 12:%02d:%02d", i / 60 % 60, i % 60));
+            }
+            events[i].setField("mytz", i % 2 == 0 ? "UTC" : "Europe/Paris");
+        }
+        ParsedBatch parallel = subject.parseBatch(events);
+        ParsedBatch sequential = subject.parseBatch(Arrays.copyOf(events, 999));
+        for (int i = 0; i < events.length; i++) {
+            Assert.assertEquals(ParseExecutionResult.SUCCESS, parallel.result(i));
+            if (i < 999) {
+                Assert.assertEquals(sequential.instant(i), parallel.instant(i));
+            }
+        }
+        Assert.assertEquals(Instant.ofEpochSecond(99),
+                parallel.instant(3 * 1433));
+        Assert.assertEquals(Instant.parse("2017-06-01T10:23:19Z"),
+                parallel.instant(4999));
+    }
+
+    @Test
+    public void testParseBatchWithInterpolatedTz() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                null, failtagList);
+        subject.acceptFilterConfig("yyyy-MM-dd HH:mm:ss", loc, "%{mytz}");
+        Event[] events = new Event[3];
+        String[] zones = { "UTC", "Europe/Paris", "UTC" };
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new Event();
+            events[i].setField("[happened_at]", "2017-06-01 12:00:00");
+            events[i].setField("mytz", zones[i]);
+        }
+        ParsedBatch batch = subject.parseBatch(events);
+        Assert.assertEquals(Instant.parse("2017-06-01T12:00:00Z"),
+                batch.instant(0));
+        Assert.assertEquals(Instant.parse("2017-06-01T10:00:00Z"),
+                batch.instant(1));
+        Assert.assertEquals(Instant.parse("2017-06-01T12:00:00Z"),
+                batch.instant(2));
+    }
+
+    @Test
+    public void testFormatMetrics() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                null, failtagList);
+        subject.acceptFilterConfig("UNIX", loc, tz);
+        subject.acceptFilterConfig("ISO8601", loc, tz);
+        for (String value : Arrays.asList("1478207457", "2001-12-07T23:54:54Z",
+                "not a date", "2001-12-07T23:54:55Z")) {
+            Event event = new Event();
+            event.setField("[happened_at]", value);
+            subject.executeParsers(event);
+        }
+        List<FormatMetrics> metrics = subject.getFormatMetrics();
+        Assert.assertEquals(2, metrics.size());
+        // Values that cannot be epochs are not even tried as UNIX.
+        Assert.assertEquals("UNIX", metrics.get(0).getFormat());
+        Assert.assertEquals(1, metrics.get(0).getAttempts());
+        Assert.assertEquals(1, metrics.get(0).getSuccesses());
+        Assert.assertEquals(0, metrics.get(0).getFailures());
+        Assert.assertEquals("ISO8601", metrics.get(1).getFormat());
+        Assert.assertEquals(3, metrics.get(1).getAttempts());
+        Assert.assertEquals(2, metrics.get(1).getSuccesses());
+        Assert.assertEquals(1, metrics.get(1).getFailures());
+        Assert.assertTrue(subject.getLatency().getCount() <= 4);
+    }
+
+    @Test
+    public void testFormatMetricsCountRepeatedValues() throws Exception {
+        DateFilter batchSubject = new DateFilter("[happened_at]",
+                "[result_ts]", null, failtagList);
+        DateFilter eventSubject = new DateFilter("[happened_at]",
+                "[result_ts]", null, failtagList);
+        for (DateFilter subject : Arrays.asList(batchSubject, eventSubject)) {
+            subject.acceptFilterConfig("yyyy-MM-dd HH:mm:ss", loc, tz);
+            subject.acceptFilterConfig("ISO8601", loc, tz);
+        }
+        String[] values = { "2001-12-07T23:54:54Z", "2001-12-07T23:54:54Z",
+                "not a date", "2001-12-07 23:54:54", "not a date",
+                "2001-12-07T23:54:54Z" };
+        Event[] events = new Event[values.length];
+        for (int i = 0; i < values.length; i++) {
+            events[i] = new Event();
+            events[i].setField("[happened_at]", values[i]);
+        }
+        batchSubject.parseBatch(events);
+        for (Event event : events) {
+            eventSubject.executeParsers(event);
+        }
+        for (int i = 0; i < 2; i++) {
+            FormatMetrics batch = batchSubject.getFormatMetrics().get(i);
+            FormatMetrics perEvent = eventSubject.getFormatMetrics().get(i);
+            Assert.assertEquals(perEvent.getAttempts(), batch.getAttempts());
+            Assert.assertEquals(perEvent.getSuccesses(),
+                    batch.getSuccesses());
+        }
+        Assert.assertEquals(3,
+                batchSubject.getFormatMetrics().get(1).getSuccesses());
+    }
+
+    @Test
+    public void testFailureSamples() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                null, failtagList);
+        subject.acceptFilterConfig("UNIX", loc, tz);
+        subject.acceptFilterConfig("yyyy-MM-dd HH:mm:ss", loc, tz);
+        subject.acceptFilterConfig("ISO8601", loc, tz);
+        Event event = new Event();
+        event.setField("[happened_at]", "2001-13-07 23:54:54");
+        Assert.assertEquals(ParseExecutionResult.FAIL,
+                subject.executeParsers(event));
+        // Within the sampling interval of the first failure.
+        event.setField("[happened_at]", "not a date");
+        subject.executeParsers(event);
+
+        FailureSamples samples = subject.getFailureSamples();
+        Assert.assertEquals(1, samples.getCount());
+        FailureSamples.Sample sample = samples.getSamples().get(0);
+        Assert.assertEquals("2001-13-07 23:54:54", sample.getValue());
+        Map<String, String> reasons = sample.getReasons();
+        Assert.assertEquals(
+                Arrays.asList("UNIX", "yyyy-MM-dd HH:mm:ss", "ISO8601"),
+                new ArrayList<>(reasons.keySet()));
+        Assert.assertTrue(reasons.get("UNIX").startsWith("not tried"));
+        Assert.assertTrue(reasons.get("yyyy-MM-dd HH:mm:ss"),
+                reasons.get("yyyy-MM-dd HH:mm:ss").contains("MonthOfYear"));
+        Assert.assertNotEquals("no match", reasons.get("ISO8601"));
+    }
+
+    @Test
+    public void testOutOfRangeYears() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                null, failtagList);
+        subject.acceptFilterConfig("yyyy-MM-dd HH:mm:ss", loc, tz);
+        String[] values = { "+999999999-01-01 00:00:00",
+                "-999999999-01-01 00:00:00", "2001-12-07 23:54:54" };
+        Event[] events = new Event[values.length];
+        for (int i = 0; i < values.length; i++) {
+            events[i] = new Event();
+            events[i].setField("[happened_at]", values[i]);
+        }
+        ParsedBatch batch = subject.parseBatch(events);
+        Assert.assertEquals(ParseExecutionResult.FAIL, batch.result(0));
+        Assert.assertEquals(ParseExecutionResult.FAIL, batch.result(1));
+        Assert.assertEquals(ParseExecutionResult.SUCCESS, batch.result(2));
+        Assert.assertEquals(ParseExecutionResult.FAIL,
+                subject.executeParsers(events[0]));
+        Assert.assertNull(events[0].getField("[result_ts]"));
+        FormatMetrics metrics = subject.getFormatMetrics().get(0);
+        Assert.assertEquals(4, metrics.getAttempts());
+        Assert.assertEquals(1, metrics.getSuccesses());
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                null, failtagList);
+        subject.setAdaptiveOrdering(true);
+        subject.acceptFilterConfig("UNIX", loc, tz);
+        subject.acceptFilterConfig("dd/MMM/yyyy:HH:mm:ss Z", loc, tz);
+        subject.acceptFilterConfig("ISO8601", loc, "%{mytz}");
+        // Each round: 4 UNIX values, 1 for the pattern and 3 ISO8601 ones
+        // parse, and the sample only parses as UNIX.
+        Assert.assertEquals(3 * (4 + 1 + 3 + 1),
+                subject.warmUp(Collections.singletonList("1496312599"), 3));
+        for (FormatMetrics metrics : subject.getFormatMetrics()) {
+            Assert.assertEquals(0, metrics.getAttempts());
+        }
+        Assert.assertEquals(0, subject.getParseCacheHits()
+                + subject.getParseCacheMisses());
+        applyString(subject, "1496312599", "2017-06-01T10:23:19.000Z", null);
+    }
+
+    @Test
+    public void testFailureSamplesRing() {
+        FailureSamples samples = new FailureSamples(2, 0,
+                TimeUnit.NANOSECONDS);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(samples.admit());
+            samples.add(new FailureSamples.Sample(i, "value " + i,
+                    Collections.emptyMap()));
+        }
+        Assert.assertEquals(3, samples.getCount());
+        List<FailureSamples.Sample> recent = samples.getSamples();
+        Assert.assertEquals(2, recent.size());
+        Assert.assertEquals("value 2", recent.get(0).getValue());
+        Assert.assertEquals("value 1", recent.get(1).getValue());
+    }
+
     @Test
     public void testUnixInts() throws Exception {
         Map<Integer, List<String>> testElements = new HashMap<Integer, List<String>>() {
@@ -217,6 +543,177 @@ public class DateFilterTest {
                 "2016-11-03T21:10:57.456000000Z");
     }
 
+    @Test
+    public void testAutoFormat() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                "[nano_ts]", failtagList);
+        subject.acceptFilterConfig("AUTO", loc, tz);
+        applyString(subject, "2016-11-03T21:10:57.456Z",
+                "2016-11-03T21:10:57.456Z", "2016-11-03T21:10:57.456000000Z");
+        applyString(subject, "03/Nov/2016:22:10:57 +0100",
+                "2016-11-03T21:10:57.000Z", "2016-11-03T21:10:57.000000000Z");
+        applyString(subject, "1478207457", "2016-11-03T21:10:57.000Z",
+                "2016-11-03T21:10:57.000000000Z");
+        applyLong(subject, 1478207457456L, "2016-11-03T21:10:57.456Z",
+                "2016-11-03T21:10:57.456000000Z");
+        applyDouble(subject, 1478207457.456D, "2016-11-03T21:10:57.456Z",
+                "2016-11-03T21:10:57.456000000Z");
+    }
+
+    @Test
+    public void testAutoFormatInterpolatedTz() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                "[nano_ts]", failtagList);
+        subject.acceptFilterConfig("AUTO", loc, "%{mytz}");
+        applyStringTz(subject, "2016/11/03 22:10:57",
+                "2016-11-03T21:10:57.000Z", "2016-11-03T21:10:57.000000000Z",
+                "Europe/Paris");
+        applyStringTz(subject, "2016/11/03 17:10:57",
+                "2016-11-03T21:10:57.000Z", "2016-11-03T21:10:57.000000000Z",
+                "America/New_York");
+        // Epochs do not need the zone.
+        applyLong(subject, 1478207457L, "2016-11-03T21:10:57.000Z",
+                "2016-11-03T21:10:57.000000000Z");
+        applyLong(subject, 1478207457456L, "2016-11-03T21:10:57.456Z",
+                "2016-11-03T21:10:57.456000000Z");
+        applyString(subject, "1478207457", "2016-11-03T21:10:57.000Z",
+                "2016-11-03T21:10:57.000000000Z");
+    }
+
+    @Test
+    public void testCharSequenceInput() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                "[nano_ts]", failtagList);
+        subject.acceptFilterConfig("UNIX", loc, tz);
+        subject.acceptFilterConfig("yyyy-MM-dd HH:mm:ss.SSS", loc, tz);
+        subject.acceptFilterConfig("ISO8601", loc, tz);
+        for (String value : Arrays.asList("1478207457.456",
+                "2016-11-03 21:10:57.456", "2016-11-03T21:10:57.456Z")) {
+            Event event = new Event();
+            event.setField("[happened_at]", new StringBuilder(value));
+            ParseExecutionResult code = subject.executeParsers(event);
+            commonAssertions(event, code, "2016-11-03T21:10:57.456Z",
+                    "2016-11-03T21:10:57.456000000Z");
+        }
+    }
+
+    @Test
+    public void testDerivedFields() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                null, failtagList);
+        subject.acceptFilterConfig("ISO8601", loc, tz);
+        subject.addEpochMillisField("[millis]");
+        subject.addDayField("[day]", "yyyy.MM.dd", "America/New_York");
+        subject.addBucketField("[hour]", 3600);
+        Event event = new Event();
+        event.setField("[happened_at]", "2016-11-04T02:10:57.456Z");
+        Assert.assertEquals(ParseExecutionResult.SUCCESS,
+                subject.executeParsers(event));
+        Assert.assertEquals(1478225457456L, event.getField("[millis]"));
+        Assert.assertEquals("2016.11.03", event.getField("[day]"));
+        Assert.assertEquals("2016-11-04T02:00:00.000Z",
+                ((Timestamp) event.getField("[hour]")).toIso8601());
+
+        Event before = new Event();
+        before.setField("[happened_at]", "1969-12-31T23:59:59.999Z");
+        Assert.assertEquals(ParseExecutionResult.SUCCESS,
+                subject.executeParsers(before));
+        Assert.assertEquals(-1L, before.getField("[millis]"));
+        Assert.assertEquals("1969.12.31", before.getField("[day]"));
+        Assert.assertEquals("1969-12-31T23:00:00.000Z",
+                ((Timestamp) before.getField("[hour]")).toIso8601());
+    }
+
+    @Test
+    public void testDerivedFieldsOutOfRange() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                null, failtagList);
+        subject.acceptFilterConfig("uuuu-MM-dd HH:mm:ss", loc, tz);
+        subject.addEpochMillisField("[millis]");
+        // Buckets of about 1000 years.
+        subject.addBucketField("[bucket]", 1000L * 366 * 86400);
+        // The first one is in the millisecond range, but not the start of
+        // its bucket.
+        for (String value : Arrays.asList("-292275000-06-01 00:00:00",
+                "+292278994-12-31 00:00:00", "+999999999-01-01 00:00:00")) {
+            Event event = new Event();
+            event.setField("[happened_at]", value);
+            Assert.assertEquals(value, ParseExecutionResult.FAIL,
+                    subject.executeParsers(event));
+            Assert.assertNull(event.getField("[millis]"));
+            Assert.assertNull(event.getField("[bucket]"));
+        }
+        Event event = new Event();
+        event.setField("[happened_at]", "-290000000-01-01 00:00:00");
+        Assert.assertEquals(ParseExecutionResult.SUCCESS,
+                subject.executeParsers(event));
+        Assert.assertNotNull(event.getField("[bucket]"));
+    }
+
+    @Test
+    public void testArrayValues() throws Exception {
+        List<Object> values = Arrays.asList("not a date", "1478207457",
+                null, "2016-11-03T21:10:56.000Z", 1478207458L,
+                "2016-11-03T21:10:55.000Z", "neither");
+        Map<String, String> expected = new HashMap<>();
+        expected.put("first", "2016-11-03T21:10:57.000Z");
+        expected.put("last", "2016-11-03T21:10:55.000Z");
+        expected.put("min", "2016-11-03T21:10:55.000Z");
+        expected.put("max", "2016-11-03T21:10:58.000Z");
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            DateFilter subject = new DateFilter("[happened_at]",
+                    "[result_ts]", null, failtagList);
+            subject.acceptFilterConfig("ISO8601", loc, tz);
+            subject.acceptFilterConfig("UNIX", loc, tz);
+            subject.setArrayValue(entry.getKey());
+            Event event = new Event();
+            event.setField("[happened_at]", values);
+            Assert.assertEquals(entry.getKey(), ParseExecutionResult.SUCCESS,
+                    subject.executeParsers(event));
+            Assert.assertEquals(entry.getKey(), entry.getValue(),
+                    ((Timestamp) event.getField("[result_ts]")).toIso8601());
+        }
+
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                null, failtagList);
+        subject.acceptFilterConfig("ISO8601", loc, tz);
+        for (List<Object> invalid : Arrays.<List<Object>>asList(
+                Arrays.<Object>asList("not a date", "1478207457"),
+                Arrays.asList(), Arrays.<Object>asList(
+                        Arrays.asList("2016-11-03T21:10:56.000Z")))) {
+            Event event = new Event();
+            event.setField("[happened_at]", invalid);
+            Assert.assertEquals(ParseExecutionResult.FAIL,
+                    subject.executeParsers(event));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownArrayValue() {
+        new DateFilter("[happened_at]", "[result_ts]", null, failtagList)
+                .setArrayValue("median");
+    }
+
+    @Test
+    public void testFallsThroughMismatchingFormats() throws Exception {
+        DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
+                null, failtagList);
+        subject.acceptFilterConfig("UNIX", loc, tz);
+        subject.acceptFilterConfig("TAI64N", loc, tz);
+        subject.acceptFilterConfig("yyyy-MM-dd HH:mm:ss", loc, tz);
+        subject.acceptFilterConfig("ISO8601", loc, tz);
+        applyString(subject, "2001-12-07T23:54:54Z",
+                "2001-12-07T23:54:54.000Z", null);
+        applyString(subject, "2001-12-07 23:54:54",
+                "2001-12-07T23:54:54.000Z", null);
+
+        Event event = new Event();
+        event.setField("[happened_at]", "not a date");
+        Assert.assertSame(ParseExecutionResult.FAIL,
+                subject.executeParsers(event));
+        Assert.assertNull(event.getField("[result_ts]"));
+    }
+
     @Test
     public void testCancelledEvent() throws Exception {
         DateFilter subject = new DateFilter("[happened_at]", "[result_ts]",
@@ -0,0 +1,50 @@
+package org.logstash.filters;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DayFieldSetterTest {
+    @Test
+    public void testWritesSameAsFormatter() {
+        for (String zone : new String[] { "UTC", "America/New_York",
+                "Pacific/Apia", "Asia/Kathmandu" }) {
+            DayFieldSetter subject = new DayFieldSetter("day", "yyyy.MM.dd",
+                    ZoneId.of(zone));
+            DateTimeFormatter formatter = DateTimeFormatter
+                    .ofPattern("yyyy.MM.dd").withZone(ZoneId.of(zone));
+            Random random = new Random(42);
+            long second = Instant.parse("2011-01-01T00:00:00Z")
+                    .getEpochSecond();
+            // Mostly forward in time like a log, with jumps back and
+            // across days sharing a table slot.
+            for (int i = 0; i < 100000; i++) {
+                second += random.nextInt(4000)
+                        - (random.nextInt(50) == 0 ? 86400 * 16 : 0);
+                Assert.assertEquals(zone + " " + second,
+                        formatter.format(Instant.ofEpochSecond(second)),
+                        subject.format(second));
+            }
+        }
+    }
+
+    @Test
+    public void testSkippedDay() {
+        // Samoa skipped 2011-12-30.
+        DayFieldSetter subject = new DayFieldSetter("day", "yyyy-MM-dd",
+                ZoneId.of("Pacific/Apia"));
+        Assert.assertEquals("2011-12-29", subject.format(
+                Instant.parse("2011-12-30T09:59:59Z").getEpochSecond()));
+        Assert.assertEquals("2011-12-31", subject.format(
+                Instant.parse("2011-12-30T10:00:00Z").getEpochSecond()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsTimeFields() {
+        new DayFieldSetter("day", "yyyy.MM.dd.HH", ZoneId.of("UTC"));
+    }
+}
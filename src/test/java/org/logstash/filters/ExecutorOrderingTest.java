@@ -0,0 +1,111 @@
+package org.logstash.filters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.logstash.filters.parser.ParserShape;
+import org.logstash.filters.parser.TimestampParserFactory;
+
+public class ExecutorOrderingTest {
+    private ExecutorOrdering ordering(boolean adaptive, String... formats) {
+        List<ParserExecutor> executors = new ArrayList<>();
+        for (String format : formats) {
+            if (format.startsWith("UNIX")) {
+                executors.add(new NumericParserExecutor(
+                        TimestampParserFactory.makeParser(format)));
+            } else {
+                executors.add(new TextParserExecutor(
+                        TimestampParserFactory.makeParser(format, "en", "UTC"),
+                        "UTC"));
+            }
+        }
+        return new ExecutorOrdering(executors, adaptive);
+    }
+
+    private void hit(ExecutorOrdering ordering, int index, int times) {
+        for (int i = 0; i < times; i++) {
+            ordering.hit(index);
+        }
+    }
+
+    @Test
+    public void testPromotesMostMatchedExecutor() {
+        ExecutorOrdering subject = ordering(true, "UNIX", "TAI64N",
+                "dd/MMM/yyyy:HH:mm:ss Z", "ISO8601");
+        hit(subject, 3, 100);
+        hit(subject, 2, 10);
+        subject.reorder();
+        // ISO8601 overlaps with TAI64N, which accepts anything after its
+        // hex digits, and with the pattern, which has a space.
+        Assert.assertArrayEquals(new int[] { 0, 1, 2, 3 }, subject.order());
+
+        subject = ordering(true, "UNIX", "dd/MMM/yyyy:HH:mm:ss Z",
+                "ISO8601");
+        hit(subject, 1, 10);
+        subject.reorder();
+        Assert.assertArrayEquals(new int[] { 1, 0, 2 }, subject.order());
+    }
+
+    @Test
+    public void testKeepsConfigOrderForOverlappingFormats() {
+        ExecutorOrdering subject = ordering(true, "UNIX", "UNIX_MS");
+        hit(subject, 1, 100);
+        subject.reorder();
+        Assert.assertArrayEquals(new int[] { 0, 1 }, subject.order());
+    }
+
+    @Test
+    public void testFollowsRecentHits() {
+        ExecutorOrdering subject = ordering(true, "UNIX", "ISO8601");
+        hit(subject, 1, 100);
+        subject.reorder();
+        Assert.assertArrayEquals(new int[] { 1, 0 }, subject.order());
+        hit(subject, 0, 10);
+        subject.reorder();
+        Assert.assertArrayEquals(new int[] { 0, 1 }, subject.order());
+    }
+
+    @Test
+    public void testRoutesStringsToPossibleExecutors() {
+        ExecutorOrdering subject = ordering(false, "UNIX", "TAI64N",
+                "dd/MMM/yyyy:HH:mm:ss Z", "EEE, dd MMM yyyy HH:mm:ss Z",
+                "yyyy-MM-dd'T'HH:mm:ss[.SSS]X", "ISO8601");
+        Assert.assertTrue(subject.routes());
+        assertRejects(subject, "2001-12-07T23:54:54Z", true, true, true, true,
+                false, false);
+        // TAI64N takes anything 24 characters long or more.
+        assertRejects(subject, "2001-12-07T23:54:54.123Z", true, false, true,
+                true, false, false);
+        assertRejects(subject, "07/Dec/2001:23:54:54 +0000", true, false,
+                false, true, true, false);
+        assertRejects(subject, "Fri, 07 Dec 2001 23:54:54 +0000", true, false,
+                true, false, true, false);
+        assertRejects(subject, "1007769294", false, true, true, true, true,
+                true);
+        assertRejects(subject, "", false, true, true, true, true, true);
+    }
+
+    @Test
+    public void testDoesNotRouteSingleExecutor() {
+        Assert.assertFalse(ordering(false, "UNIX").routes());
+    }
+
+    private void assertRejects(ExecutorOrdering subject, String value,
+            boolean... expected) {
+        long signature = ParserShape.signature(value);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(value + " by executor " + i, expected[i],
+                    subject.rejects(i, value.length(), signature));
+        }
+    }
+
+    @Test
+    public void testStaysInConfigOrderWhenNotAdaptive() {
+        ExecutorOrdering subject = ordering(false, "UNIX", "ISO8601");
+        hit(subject, 1, 100);
+        subject.reorder();
+        Assert.assertArrayEquals(new int[] { 0, 1 }, subject.order());
+    }
+}
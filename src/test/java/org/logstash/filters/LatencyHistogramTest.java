@@ -0,0 +1,41 @@
+package org.logstash.filters;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testBucketsKeepThreeSignificantBits() {
+        long[] values = { 0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789,
+                Long.MAX_VALUE };
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucket(value);
+            Assert.assertTrue(value + " below its bucket",
+                    LatencyHistogram.lowestValue(bucket) <= value);
+            Assert.assertTrue(value + " above its bucket",
+                    LatencyHistogram.highestValue(bucket) >= value);
+            Assert.assertTrue(value + " bucket too wide",
+                    LatencyHistogram.highestValue(bucket)
+                            - LatencyHistogram.lowestValue(bucket) <= value / 8);
+        }
+        for (int bucket = 0; bucket < LatencyHistogram.bucket(Long.MAX_VALUE); bucket++) {
+            Assert.assertEquals(LatencyHistogram.highestValue(bucket) + 1,
+                    LatencyHistogram.lowestValue(bucket + 1));
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        long median = histogram.getValueAtPercentile(50);
+        Assert.assertTrue(median + "", median >= 500000 && median <= 500000 * 9 / 8);
+        long p99 = histogram.getValueAtPercentile(99);
+        Assert.assertTrue(p99 + "", p99 >= 990000 && p99 <= 990000 * 9 / 8);
+        Assert.assertTrue(histogram.getValueAtPercentile(100) >= 1000000);
+    }
+}
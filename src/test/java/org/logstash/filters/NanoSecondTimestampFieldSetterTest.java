@@ -0,0 +1,52 @@
+package org.logstash.filters;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NanoSecondTimestampFieldSetterTest {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    @Test
+    public void testWritesSameAsFormatter() {
+        for (String value : Arrays.asList("1970-01-01T00:00:00Z",
+                "1969-12-31T23:59:59.999999999Z", "2000-02-29T12:34:56.789Z",
+                "2016-12-31T23:59:59.000000001Z", "0001-01-01T00:00:00Z",
+                "9999-12-31T23:59:59.999999999Z", "+10000-01-01T00:00:00Z",
+                "0000-06-15T00:00:00Z", "-0001-01-01T00:00:00Z")) {
+            Instant instant = Instant.parse(value);
+            Assert.assertEquals(FORMATTER.format(instant),
+                    NanoSecondTimestampFieldSetter.format(instant));
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            Instant instant = Instant.ofEpochSecond(
+                    random.nextLong() % 253402300800L,
+                    random.nextInt(1000000000));
+            Assert.assertEquals(FORMATTER.format(instant),
+                    NanoSecondTimestampFieldSetter.format(instant));
+        }
+    }
+
+    @Test
+    public void testEpochNanos() {
+        Assert.assertEquals(1478207457456789012L, EpochNanosFieldSetter
+                .epochNanos(Instant.parse("2016-11-03T21:10:57.456789012Z")));
+        Assert.assertEquals(-500000000L, EpochNanosFieldSetter
+                .epochNanos(Instant.parse("1969-12-31T23:59:59.500Z")));
+        Assert.assertEquals(7258118400000000001L,
+                EpochNanosFieldSetter.epochNanos(
+                        Instant.parse("2200-01-01T00:00:00.000000001Z")));
+        Assert.assertEquals(new BigInteger("32503680000000000001"),
+                EpochNanosFieldSetter.epochNanos(
+                        Instant.parse("3000-01-01T00:00:00.000000001Z")));
+    }
+}
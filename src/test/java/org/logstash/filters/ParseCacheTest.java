@@ -0,0 +1,90 @@
+package org.logstash.filters;
+
+import java.time.Instant;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.logstash.filters.parser.TimestampParser;
+import org.logstash.filters.parser.TimestampParserFactory;
+
+public class ParseCacheTest {
+    private final ParseCache.Stats stats = new ParseCache.Stats();
+    private final ParseCache subject = new ParseCache(4, stats);
+
+    @Test
+    public void testHitsRepeatedValues() {
+        TimestampParser parser = TimestampParserFactory.makeParser("ISO8601",
+                "en", "UTC");
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(Instant.parse("2001-12-07T23:54:54.123Z"),
+                    subject.parse(parser, "2001-12-07T23:54:54.123Z", null));
+        }
+        Assert.assertEquals(1, stats.misses());
+        Assert.assertEquals(2, stats.hits());
+    }
+
+    @Test
+    public void testReusesSecondsForNewFractions() {
+        TimestampParser parser = TimestampParserFactory
+                .makeParser("yyyy-MM-dd HH:mm:ss.SSS Z", "en", "UTC");
+        Assert.assertEquals(Instant.parse("2001-12-07T22:54:54.123Z"), subject
+                .parse(parser, "2001-12-07 23:54:54.123 +0100", null));
+        Assert.assertEquals(Instant.parse("2001-12-07T22:54:54.987Z"), subject
+                .parse(parser, "2001-12-07 23:54:54.987 +0100", null));
+        Assert.assertEquals(Instant.parse("2001-12-07T22:54:54.005Z"), subject
+                .parse(parser, "2001-12-07 23:54:54.005 +0100", null));
+        Assert.assertEquals(Instant.parse("2001-12-07T22:54:55.005Z"), subject
+                .parse(parser, "2001-12-07 23:54:55.005 +0100", null));
+        Assert.assertEquals(2, stats.misses());
+        Assert.assertEquals(2, stats.prefixHits());
+    }
+
+    @Test
+    public void testComparesFieldsAfterTheFraction() {
+        TimestampParser parser = TimestampParserFactory
+                .makeParser("HHmmssSSSyyyyMMdd", "en", "UTC");
+        Assert.assertEquals(Instant.parse("2001-01-01T10:10:10.123Z"),
+                subject.parse(parser, "10101012320010101", null));
+        Assert.assertEquals(Instant.parse("2002-01-01T10:10:10.123Z"),
+                subject.parse(parser, "10101012320020101", null));
+        Assert.assertEquals(2, stats.misses());
+        Assert.assertEquals(0, stats.prefixHits());
+    }
+
+    @Test
+    public void testUsesTheWidthOfTheFraction() {
+        TimestampParser parser = TimestampParserFactory
+                .makeParser("ss.SSSddMMyyyy HH:mm", "en", "UTC");
+        Assert.assertEquals(Instant.parse("2001-01-01T10:10:10.123Z"),
+                subject.parse(parser, "10.12301012001 10:10", null));
+        Assert.assertEquals(Instant.parse("2001-01-02T10:10:10.123Z"),
+                subject.parse(parser, "10.12302012001 10:10", null));
+        Assert.assertEquals(Instant.parse("2001-01-02T10:10:10.456Z"),
+                subject.parse(parser, "10.45602012001 10:10", null));
+        Assert.assertEquals(3, stats.misses());
+        Assert.assertEquals(0, stats.prefixHits());
+    }
+
+    @Test
+    public void testKeysOnTimezone() {
+        TimestampParser parser = TimestampParserFactory.makeParser("ISO8601",
+                "en", "%{tz}");
+        Assert.assertEquals(Instant.parse("2001-12-07T23:54:54.123Z"),
+                subject.parse(parser, "2001-12-07T23:54:54.123", "UTC"));
+        Assert.assertEquals(Instant.parse("2001-12-07T22:54:54.123Z"),
+                subject.parse(parser, "2001-12-07T23:54:54.123", "Europe/Paris"));
+        Assert.assertEquals(Instant.parse("2001-12-07T22:54:54.456Z"),
+                subject.parse(parser, "2001-12-07T23:54:54.456", "Europe/Paris"));
+        Assert.assertEquals(2, stats.misses());
+        Assert.assertEquals(1, stats.prefixHits());
+    }
+
+    @Test
+    public void testDoesNotCacheMismatches() {
+        TimestampParser parser = TimestampParserFactory.makeParser("ISO8601",
+                "en", "UTC");
+        Assert.assertNull(subject.parse(parser, "not a date", null));
+        Assert.assertNull(subject.parse(parser, "not a date", null));
+        Assert.assertEquals(2, stats.misses());
+    }
+}
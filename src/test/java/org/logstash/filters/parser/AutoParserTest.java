@@ -0,0 +1,102 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AutoParserTest {
+  private final CoarseClock clock = new CoarseClock(
+      Clock.fixed(Instant.parse("2017-06-15T00:00:00Z"), ZoneOffset.UTC));
+  private final TimestampParser subject = new AutoParser(Locale.ENGLISH, "UTC", clock);
+
+  private void assertParses(String expected, String input) {
+    assertEquals(input, Instant.parse(expected), subject.parse(input));
+  }
+
+  @Test
+  public void detectsCommonLayouts() {
+    assertParses("2017-06-01T10:23:19.123Z", "2017-06-01T10:23:19.123Z");
+    assertParses("2017-06-01T10:23:19.123Z", "2017-06-01 10:23:19,123");
+    assertParses("2017-06-01T08:23:19Z", "2017-06-01 10:23:19 +0200");
+    assertParses("2017-06-01T10:23:19Z", "2017/06/01 10:23:19");
+    assertParses("2017-06-01T08:23:19Z", "01/Jun/2017:10:23:19 +0200");
+    assertParses("2017-06-01T10:23:19.123Z", "01-Jun-2017 10:23:19.123");
+    assertParses("2017-06-01T10:23:19Z", "Jun 01 10:23:19");
+    assertParses("2017-06-01T10:23:19Z", "Jun  1 10:23:19");
+    assertParses("2017-06-01T10:23:19Z", "Thu Jun  1 10:23:19 2017");
+    assertParses("2017-06-01T10:23:19Z", "Thu, 01 Jun 2017 10:23:19 GMT");
+    assertParses("2017-06-01T10:23:19Z", "170601 10:23:19");
+  }
+
+  @Test
+  public void detectsEpochs() {
+    assertParses("2017-06-01T10:23:19Z", "1496312599");
+    assertParses("2017-06-01T10:23:19.5Z", "1496312599.5");
+    assertParses("2017-06-01T10:23:19.123Z", "1496312599123");
+    assertParses("2017-06-01T10:23:19Z", "@40000000592feb2100000000");
+    assertEquals(Instant.parse("2017-06-01T10:23:19Z"), subject.tryParse(1496312599L));
+    assertEquals(Instant.parse("2017-06-01T10:23:19.123Z"), subject.tryParse(1496312599123L));
+    assertEquals(Instant.parse("2017-06-01T10:23:19.5Z"), subject.tryParse(1496312599.5));
+    assertEquals(Instant.parse("2017-06-01T10:23:19.5Z"), subject.tryParse(new BigDecimal("1496312599.5")));
+  }
+
+  @Test
+  public void reusesLayoutForSameSkeleton() {
+    assertParses("2017-06-01T10:23:19Z", "Jun 01 10:23:19");
+    assertParses("2017-05-31T23:59:59Z", "May 31 23:59:59");
+    assertParses("2017-01-01T00:00:00Z", "Jan 01 00:00:00");
+  }
+
+  @Test
+  public void rejectsUnknownLayouts() {
+    assertNull(subject.tryParse("not a date"));
+    assertNull(subject.tryParse(""));
+    assertNull(subject.tryParse("2017-13-01T10:23:19Z"));
+    // A valid value of the same skeleton still parses after an invalid one.
+    assertParses("2017-12-01T10:23:19Z", "2017-12-01T10:23:19Z");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void parseThrowsForUnknownLayouts() {
+    subject.parse("not a date");
+  }
+
+  @Test
+  public void usesTimezoneForLocalTimes() {
+    assertEquals(Instant.parse("2017-06-01T08:23:19Z"),
+        subject.parseWithTimeZone("2017/06/01 10:23:19", "Europe/Paris"));
+  }
+
+  @Test
+  public void skeletons() {
+    assertEquals("9999-99-99 99:99:99,999", AutoParser.skeleton("2017-06-01 10:23:19,123"));
+    assertEquals("a  9 99:99:99", AutoParser.skeleton("Jun  1 10:23:19"));
+    assertEquals("a, 99 a 9999 99:99:99 a", AutoParser.skeleton("Thu, 01 Jun 2017 10:23:19 GMT"));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CasualISO8601ParserTest {
+  private final TimestampParser subject = new CasualISO8601Parser("UTC");
+
+  private void assertParses(String expected, String input) {
+    assertEquals(input, Instant.parse(expected), subject.parse(input));
+  }
+
+  @Test
+  public void parsesCommonShapes() {
+    assertParses("2024-03-01T12:34:56.789Z", "2024-03-01T12:34:56.789Z");
+    assertParses("2024-03-01T12:34:56.789Z", "2024-03-01 12:34:56,789Z");
+    assertParses("2024-03-01T12:34:56Z", "20240301T123456Z");
+    assertParses("2024-03-01T12:34:00Z", "2024-03-01T12:34");
+    assertParses("2001-01-01T08:00:00Z", "2001-01-01T00:00:00-0800");
+    assertParses("2010-05-03T08:18:18Z", "2010-05-03 08:18:18+00:00");
+    assertParses("2001-09-05T09:36:36.123Z", "2001-09-05T16:36:36.123+0700");
+    assertParses("2004-07-04T16:27:27.123Z", "2004-07-04T12:27:27.123-04:00");
+  }
+
+  @Test
+  public void keepsAllFractionalDigits() {
+    assertParses("2024-03-01T12:34:56.1Z", "2024-03-01T12:34:56.1Z");
+    assertParses("2024-03-01T12:34:56.1234Z", "2024-03-01T12:34:56.1234Z");
+    assertParses("2024-03-01T12:34:56.123456789Z", "2024-03-01T12:34:56.123456789Z");
+  }
+
+  @Test
+  public void usesTimezoneForLocalTimes() {
+    assertEquals(Instant.parse("2016-05-01T12:18:18.123Z"),
+            subject.parseWithTimeZone("2016-05-01 08:18:18.123", "America/Caracas"));
+  }
+
+  @Test
+  public void fallsBackForOtherShapes() {
+    assertParses("2001-04-22T10:00:00Z", "2001-112T10:00:00Z");
+    assertParses("2024-07-01T10:00:00Z", "2024-07-01T12:00:00+02:00[Europe/Paris]");
+  }
+
+  @Test
+  public void triesOtherShapesWithoutThrowing() {
+    assertEquals(Instant.parse("2001-04-22T10:00:00Z"), subject.tryParse("2001-112T10:00:00Z"));
+    assertEquals(Instant.parse("2001-04-22T08:00:00Z"),
+        subject.tryParseWithTimeZone("2001-112T10:00:00", "Europe/Paris"));
+    assertEquals(Instant.parse("2024-07-01T10:00:00Z"),
+        subject.tryParse("2024-07-01T12:00:00+02:00[Europe/Paris]"));
+    assertNull(subject.tryParseWithTimeZone("2001-112T10:00:00", "Not/AZone"));
+    assertNull(subject.tryParse("2001-400T10:00:00Z"));
+    assertNull(subject.tryParse("2001-112T10:00:00 and more"));
+  }
+
+  @Test
+  public void rejectsYearZero() {
+    assertNull(subject.tryParse("0000-01-01T00:00:00Z"));
+    assertNull(subject.tryParse("00000101T000000Z"));
+    assertNull(subject.tryParseWithTimeZone("0000-01-01 00:00:00", "UTC"));
+    assertEquals(Instant.parse("0001-01-01T00:00:00Z"), subject.tryParse("0001-01-01T00:00:00Z"));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void rejectsInvalidDates() {
+    subject.parse("2024-13-01T00:00:00Z");
+  }
+
+  @Test
+  public void parsesCharSequencesAndBytes() {
+    assertEquals(Instant.parse("2024-03-01T12:34:56.789Z"),
+        subject.tryParse(new StringBuilder("2024-03-01T12:34:56.789Z")));
+    assertEquals(Instant.parse("2001-04-22T10:00:00Z"),
+        subject.tryParse(new StringBuilder("2001-112T10:00:00Z")));
+    byte[] json = "{\"ts\":\"2024-03-01 12:34:56\"}".getBytes(StandardCharsets.UTF_8);
+    assertEquals(Instant.parse("2024-03-01T11:34:56Z"),
+        subject.tryParseWithTimeZone(json, 7, 19, "Europe/Paris"));
+    // Not ASCII, decoded before parsing.
+    byte[] other = "2024-03-01T12:34:56\u00e9".getBytes(StandardCharsets.UTF_8);
+    assertNull(subject.tryParse(other, 0, other.length));
+    assertEquals(Instant.parse("2024-03-01T12:34:56Z"), subject.tryParse(other, 0, 19));
+  }
+}
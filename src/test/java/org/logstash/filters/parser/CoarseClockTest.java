@@ -0,0 +1,110 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoarseClockTest {
+
+  private static final class SettableClock extends Clock {
+    private Instant instant;
+
+    SettableClock(String instant) {
+      this.instant = Instant.parse(instant);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+  private static Instant parse(CoarseClock clock, String pattern, String value) {
+    return new Jsr310Parser(pattern, Locale.ENGLISH, "UTC", clock).parse(value);
+  }
+
+  @Test
+  public void decemberValuesInJanuaryAreFromLastYear() {
+    CoarseClock clock = new CoarseClock(Clock.fixed(Instant.parse("2018-01-02T10:00:00Z"), ZoneOffset.UTC));
+    assertEquals(Instant.parse("2017-12-31T23:59:59Z"), parse(clock, "MMM dd HH:mm:ss", "Dec 31 23:59:59"));
+    assertEquals(Instant.parse("2018-01-01T00:00:00Z"), parse(clock, "MMM dd HH:mm:ss", "Jan 01 00:00:00"));
+    assertEquals(Instant.parse("2017-12-31T22:59:59Z"), parse(clock, "MMM dd HH:mm:ss Z", "Dec 31 23:59:59 +0100"));
+    assertEquals(Instant.parse("2017-12-31T23:59:59Z"),
+        CompiledPatternParser.compile("MMM dd HH:mm:ss", Locale.ENGLISH, "UTC", clock).parse("Dec 31 23:59:59"));
+  }
+
+  @Test
+  public void januaryValuesInDecemberAreFromNextYear() {
+    CoarseClock clock = new CoarseClock(Clock.fixed(Instant.parse("2017-12-31T10:00:00Z"), ZoneOffset.UTC));
+    assertEquals(Instant.parse("2018-01-01T00:00:00Z"), parse(clock, "MMM dd HH:mm:ss", "Jan 01 00:00:00"));
+    assertEquals(Instant.parse("2017-12-31T00:00:00Z"), parse(clock, "MMM dd HH:mm:ss", "Dec 31 00:00:00"));
+    assertEquals(Instant.parse("2017-06-15T12:00:00Z"), parse(clock, "MMM dd HH:mm:ss", "Jun 15 12:00:00"));
+  }
+
+  @Test
+  public void currentMonthIsTakenInTheValueZone() {
+    CoarseClock clock = new CoarseClock(Clock.fixed(Instant.parse("2017-12-31T20:00:00Z"), ZoneOffset.UTC));
+    Jsr310Parser parser = new Jsr310Parser("MMM dd HH:mm:ss", Locale.ENGLISH, "UTC", clock);
+    // Already January in Tokyo, still December in UTC.
+    assertEquals(Instant.parse("2017-12-31T14:59:59Z"), parser.parseWithTimeZone("Dec 31 23:59:59", "Asia/Tokyo"));
+    assertEquals(Instant.parse("2018-01-01T00:00:00Z"), parser.parseWithTimeZone("Jan 01 00:00:00", "UTC"));
+  }
+
+  @Test
+  public void timeOnlyMovesOnRefresh() {
+    SettableClock source = new SettableClock("2017-12-31T23:59:59Z");
+    CoarseClock clock = new CoarseClock(source);
+    source.instant = Instant.parse("2018-01-01T00:00:01Z");
+    assertEquals(Instant.parse("2017-12-31T23:59:59Z").getEpochSecond(), clock.epochSecond());
+    assertEquals(Instant.parse("2018-01-01T00:00:00Z"), parse(clock, "MMM dd HH:mm:ss", "Jan 01 00:00:00"));
+
+    clock.refresh();
+    assertEquals(Instant.parse("2018-01-01T00:00:01Z").getEpochSecond(), clock.epochSecond());
+    assertEquals(Instant.parse("2017-12-31T00:00:00Z"), parse(clock, "MMM dd HH:mm:ss", "Dec 31 00:00:00"));
+    assertEquals(Instant.parse("2018-01-01T00:00:00Z"), parse(clock, "MMM dd HH:mm:ss", "Jan 01 00:00:00"));
+  }
+
+  @Test
+  public void systemClockMovesWithoutRefresh() {
+    // Nothing refreshes the shared instance of parsers made outside a filter.
+    long before = Instant.now().getEpochSecond();
+    long now = CoarseClock.system().epochSecond();
+    assertTrue(now >= before && now <= Instant.now().getEpochSecond());
+  }
+}
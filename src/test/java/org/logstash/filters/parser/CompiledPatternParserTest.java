@@ -0,0 +1,87 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CompiledPatternParserTest {
+  @Test
+  public void compilesFixedWidthPatterns() {
+    assertNotNull(CompiledPatternParser.compile("yyyy-MM-dd HH:mm:ss.SSS", Locale.ENGLISH, "UTC"));
+    assertNotNull(CompiledPatternParser.compile("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH, "UTC"));
+    assertNotNull(CompiledPatternParser.compile("MMM dd HH:mm:ss", Locale.ENGLISH, "UTC"));
+  }
+
+  @Test
+  public void leavesOtherPatternsToDateTimeFormatter() {
+    assertNull(CompiledPatternParser.compile("MMM  d HH:mm:ss", Locale.ENGLISH, "UTC"));
+    assertNull(CompiledPatternParser.compile("yyyy-MM-dd[ HH:mm:ss]", Locale.ENGLISH, "UTC"));
+    assertNull(CompiledPatternParser.compile("EEE MMM dd HH:mm:ss yyyy", Locale.ENGLISH, "UTC"));
+    assertNull(CompiledPatternParser.compile("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.ENGLISH, "UTC"));
+  }
+
+  @Test
+  public void parsesApacheAccessLogTimestamps() {
+    TimestampParser parser = TimestampParserFactory.makeParser("dd/MMM/yyyy:HH:mm:ss Z", "en", "UTC");
+    assertEquals(Instant.parse("2000-10-10T20:55:36Z"), parser.parse("10/Oct/2000:13:55:36 -0700"));
+  }
+
+  @Test
+  public void parsesLocalTimesInTimezone() {
+    TimestampParser parser = TimestampParserFactory.makeParser("yyyy-MM-dd HH:mm:ss.SSS", "en", "Europe/Paris");
+    assertEquals(Instant.parse("2024-03-01T11:34:56.789Z"), parser.parse("2024-03-01 12:34:56.789"));
+  }
+
+  @Test
+  public void usesLocaleMonthNames() {
+    TimestampParser parser = TimestampParserFactory.makeParser("dd MMMM yyyy HH:mm", "fr", "UTC");
+    assertEquals(Instant.parse("2024-08-15T10:00:00Z"), parser.parse("15 ao\u00fbt 2024 10:00"));
+  }
+
+  @Test
+  public void matchesDateTimeFormatterOnOddInputs() {
+    TimestampParser parser = TimestampParserFactory.makeParser("yyyy-MM-dd HH:mm:ss", "en", "UTC");
+    // Smart resolution of Feb 30 is left to DateTimeFormatter.
+    assertEquals(Instant.parse("2023-02-28T00:00:00Z"), parser.parse("2023-02-30 00:00:00"));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void rejectsMismatchingInputs() {
+    TimestampParserFactory.makeParser("yyyy-MM-dd HH:mm:ss", "en", "UTC").parse("2023/02/01 00:00:00");
+  }
+
+  @Test
+  public void parsesCharSequencesAndBytes() {
+    TimestampParser parser = TimestampParserFactory.makeParser("dd/MMM/yyyy:HH:mm:ss Z", "en", "UTC");
+    Instant expected = Instant.parse("2000-10-10T20:55:36Z");
+    assertEquals(expected, parser.tryParse(new StringBuilder("10/Oct/2000:13:55:36 -0700")));
+    byte[] line = "127.0.0.1 [10/Oct/2000:13:55:36 -0700] GET /".getBytes(StandardCharsets.US_ASCII);
+    assertEquals(expected, parser.tryParse(line, 11, 26));
+    assertNull(parser.tryParse(line, 10, 26));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TAI64NParserTest {
+  private final TimestampParser subject = new TAI64NParser();
+  private final TimestampParser tai = new TAI64NParser(true);
+
+  private static long taiSecond(String utc, int taiMinusUtc) {
+    return Instant.parse(utc).getEpochSecond() + taiMinusUtc;
+  }
+
+  @Test
+  public void decodesHexLabels() {
+    Instant expected = Instant.parse("2012-12-22T01:00:46.767422500Z");
+    assertEquals(expected, subject.parse("4000000050d506482dbdf024"));
+    assertEquals(expected, subject.parse("@4000000050D506482DBDF024"));
+    assertEquals(expected, subject.tryParse("@4000000050d506482dbdf024 a log line"));
+    assertEquals(expected, subject.tryParse(new StringBuilder("@4000000050d506482dbdf024")));
+  }
+
+  @Test
+  public void rejectsInvalidLabels() {
+    assertNull(subject.tryParse(""));
+    assertNull(subject.tryParse("@4000000050d506482dbdf02"));
+    assertNull(subject.tryParse("@4000000050d50648zdbdf024"));
+    assertNull(subject.tryParse("@c000000050d506482dbdf024"));
+    assertNull(subject.tryParse("@4000000050d50648adbdf024"));
+    assertNull(subject.tryParse("@4000000050d50648\u0662dbdf024"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void parseThrowsForInvalidLabels() {
+    subject.parse("not a label");
+  }
+
+  @Test
+  public void decodesBinaryLabels() {
+    byte[] label = { 0x00, 0x40, 0x00, 0x00, 0x00, 0x50, (byte) 0xd5, 0x06, 0x48,
+        0x2d, (byte) 0xbd, (byte) 0xf0, 0x24, 0x00 };
+    assertEquals(Instant.parse("2012-12-22T01:00:46.767422500Z"), subject.tryParse(label, 1, 12));
+    label[1] = (byte) 0xc0;
+    assertNull(subject.tryParse(label, 1, 12));
+    byte[] text = "@4000000050d506482dbdf024".getBytes(StandardCharsets.US_ASCII);
+    assertEquals(Instant.parse("2012-12-22T01:00:46.767422500Z"), subject.tryParse(text, 0, text.length));
+  }
+
+  @Test
+  public void subtractsLeapSeconds() {
+    // 0x50d50648 is 35 seconds ahead of UTC on 2012-12-22.
+    assertEquals(Instant.parse("2012-12-22T01:00:21.767422500Z"), tai.parse("@4000000050d506482dbdf024"));
+  }
+
+  @Test
+  public void looksUpTaiMinusUtc() {
+    assertEquals(10, LeapSeconds.taiMinusUtc(0));
+    assertEquals(10, LeapSeconds.taiMinusUtc(-1000000000L));
+    assertEquals(10, LeapSeconds.taiMinusUtc(taiSecond("1972-06-30T23:59:59Z", 10)));
+    assertEquals(11, LeapSeconds.taiMinusUtc(taiSecond("1972-07-01T00:00:00Z", 11)));
+    assertEquals(36, LeapSeconds.taiMinusUtc(taiSecond("2016-12-31T23:59:59Z", 36)));
+    assertEquals(37, LeapSeconds.taiMinusUtc(taiSecond("2017-01-01T00:00:00Z", 37)));
+    assertEquals(37, LeapSeconds.taiMinusUtc(taiSecond("2030-01-01T00:00:00Z", 37)));
+    // The inserted second, 2016-12-31T23:59:60, reads as the next one.
+    long inserted = taiSecond("2016-12-31T23:59:59Z", 36) + 1;
+    assertEquals(Instant.parse("2017-01-01T00:00:00Z").getEpochSecond(),
+        inserted - LeapSeconds.taiMinusUtc(inserted));
+  }
+}
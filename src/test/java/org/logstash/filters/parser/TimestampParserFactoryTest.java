@@ -0,0 +1,103 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TimestampParserFactoryTest {
+
+  @Test
+  public void testSameConfigurationSharesParser() {
+    for (String pattern : new String[]{"ISO8601", "UNIX", "UNIX_MS", "TAI64N",
+        "yyyy-MM-dd HH:mm:ss.SSS", "MMM dd HH:mm:ss", "EEE, dd MMM yyyy HH:mm:ss Z"}) {
+      TimestampParser first = TimestampParserFactory.makeParser(pattern, "en", "UTC");
+      TimestampParser second = TimestampParserFactory.makeParser(pattern, Locale.forLanguageTag("en"), "UTC");
+      assertSame(pattern, first, second);
+    }
+  }
+
+  @Test
+  public void testDifferentConfigurationGetsItsOwnParser() {
+    String pattern = "yyyy-MM-dd HH:mm:ss";
+    TimestampParser utc = TimestampParserFactory.makeParser(pattern, "en", "UTC");
+    TimestampParser paris = TimestampParserFactory.makeParser(pattern, "en", "Europe/Paris");
+    TimestampParser french = TimestampParserFactory.makeParser(pattern, "fr", "UTC");
+    assertNotSame(utc, paris);
+    assertNotSame(utc, french);
+
+    assertEquals(Instant.parse("2017-06-01T10:00:00Z"), utc.parse("2017-06-01 10:00:00"));
+    assertEquals(Instant.parse("2017-06-01T08:00:00Z"), paris.parse("2017-06-01 10:00:00"));
+  }
+
+  @Test
+  public void testInjectedClockIsNotShared() {
+    CoarseClock clock = new CoarseClock(Clock.fixed(Instant.parse("2017-06-01T00:00:00Z"), ZoneOffset.UTC));
+    String pattern = "MMM dd HH:mm:ss";
+    TimestampParser clocked = TimestampParserFactory.makeParser(pattern, "en", "UTC", clock);
+    assertNotSame(TimestampParserFactory.makeParser(pattern, "en", "UTC"), clocked);
+    assertNotSame(clocked, TimestampParserFactory.makeParser(pattern, "en", "UTC", clock));
+    assertEquals(Instant.parse("2017-05-01T10:00:00Z"), clocked.parse("May 01 10:00:00"));
+
+    // Values with a year do not depend on the clock.
+    assertSame(TimestampParserFactory.makeParser("yyyy-MM-dd HH:mm:ss", "en", "UTC"),
+        TimestampParserFactory.makeParser("yyyy-MM-dd HH:mm:ss", "en", "UTC", clock));
+  }
+
+  @Test
+  public void testRegistryIsBounded() {
+    for (int i = 0; i < 3000; i++) {
+      TimestampParserFactory.makeParser("yyyy-MM-dd'T" + i + "'", "en", "UTC");
+    }
+    assertTrue(TimestampParserFactory.registered() <= 1024);
+  }
+
+  @Test
+  public void testAutoParsersAreNotShared() {
+    // They learn the layouts of the values of their filter.
+    assertNotSame(TimestampParserFactory.makeParser("AUTO", "en", "UTC"),
+        TimestampParserFactory.makeParser("AUTO", "en", "UTC"));
+  }
+
+  @Test
+  public void testInterpolatedZoneSharesParser() {
+    assertSame(TimestampParserFactory.makeParser("ISO8601", "en", "%{tz}"),
+        TimestampParserFactory.makeParser("ISO8601", "en", "%{other_tz}"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPatternIsNotRegistered() {
+    try {
+      TimestampParserFactory.makeParser("yyyy-MM-dd qqqq {", "en", "UTC");
+    } catch (IllegalArgumentException e) {
+      // A failed build must not leave anything behind, so it fails again.
+    }
+    TimestampParserFactory.makeParser("yyyy-MM-dd qqqq {", "en", "UTC");
+  }
+}
@@ -24,6 +24,7 @@ import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 
 import org.junit.runner.RunWith;
@@ -67,5 +68,11 @@ public class UnixEpochParserTest {
     Instant actual = new UnixEpochParser().parse(new BigDecimal(input));
     assertEquals(expected, actual);
   }
-}
 
+  @Test
+  public void parsesEpochCharSequence() {
+    assertEquals(expected, new UnixEpochParser().tryParse(new StringBuilder(input)));
+    byte[] bytes = (" " + input + " ").getBytes(StandardCharsets.US_ASCII);
+    assertEquals(expected, new UnixEpochParser().tryParse(bytes, 1, input.length()));
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class WarmUpValuesTest {
+  private static final Instant INSTANT = Instant.parse("2017-06-01T10:23:19.123456789Z");
+  private static final CoarseClock CLOCK = new CoarseClock(Clock.fixed(INSTANT, ZoneOffset.UTC));
+
+  private static Instant parse(TimestampParser parser, Object value) {
+    if (value instanceof String) {
+      return parser.tryParse((String) value);
+    } else if (value instanceof Long) {
+      return parser.tryParse(((Long) value).longValue());
+    } else {
+      return parser.tryParse(((Double) value).doubleValue());
+    }
+  }
+
+  private static void assertParses(String format, String timezone) {
+    List<Object> values = WarmUpValues.of(format, Locale.ENGLISH, timezone).at(INSTANT);
+    assertFalse(format, values.isEmpty());
+    TimestampParser parser = TimestampParserFactory.makeParser(format, Locale.ENGLISH, timezone, CLOCK);
+    for (Object value : values) {
+      Instant parsed = parse(parser, value);
+      assertNotNull(format + " " + value, parsed);
+      assertTrue(format + " " + value, Duration.between(parsed, INSTANT).abs().getSeconds() < 1);
+    }
+  }
+
+  @Test
+  public void valuesParseInTheirFormat() {
+    for (String format : new String[] {"ISO8601", "UNIX", "UNIX_MS", "TAI64N", "AUTO",
+        "dd/MMM/yyyy:HH:mm:ss Z", "MMM dd HH:mm:ss.SSS", "yyyy-MM-dd HH:mm:ss"}) {
+      assertParses(format, "Europe/Paris");
+    }
+  }
+
+  @Test
+  public void autoValuesCoverEveryLayout() {
+    List<Object> values = WarmUpValues.of("AUTO", Locale.ENGLISH, "UTC").at(INSTANT);
+    // Three ISO8601 values and four epochs before the layouts.
+    assertEquals(7 + AutoParser.PATTERNS.length, values.size());
+  }
+
+  @Test
+  public void zoneFallsBackToTheSystemZone() {
+    assertEquals(ZoneId.systemDefault(), WarmUpValues.zone(null));
+    assertEquals(ZoneId.systemDefault(), WarmUpValues.zone("%{tz}"));
+    assertEquals(ZoneId.systemDefault(), WarmUpValues.zone("Not/AZone"));
+    assertEquals(ZoneId.of("Europe/Paris"), WarmUpValues.zone("Europe/Paris"));
+  }
+
+
+  @Test
+  public void autoDoesNotLearnFromWarmUp() {
+    AutoParser parser = new AutoParser(Locale.ENGLISH, "UTC", CLOCK);
+    for (Object value : WarmUpValues.of("AUTO", Locale.ENGLISH, "UTC").at(INSTANT)) {
+      if (value instanceof String) {
+        assertNotNull((String) value, parser.warmUp((String) value, null));
+      }
+    }
+    assertEquals(0, parser.skeletons());
+    assertNotNull(parser.tryParse("2017/06/01 10:23:19"));
+    assertEquals(1, parser.skeletons());
+  }
+}
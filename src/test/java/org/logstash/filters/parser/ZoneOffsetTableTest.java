@@ -0,0 +1,73 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.logstash.filters.parser;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+
+import static org.junit.Assert.assertEquals;
+
+public class ZoneOffsetTableTest {
+  private static final long NOW = Instant.parse("2024-06-01T00:00:00Z").getEpochSecond();
+
+  private void assertSameAsZonedDateTime(String zoneId) {
+    ZoneId zone = ZoneId.of(zoneId);
+    ZoneOffsetTable table = ZoneOffsetTable.build(zone, NOW);
+    // Every minute around each transition, and a sample of the rest.
+    ZoneOffsetTransition transition = zone.getRules().nextTransition(Instant.ofEpochSecond(NOW - 3 * 365 * 86400L));
+    while (transition != null && transition.toEpochSecond() < NOW + 3 * 365 * 86400L) {
+      long local = transition.toEpochSecond() + transition.getOffsetBefore().getTotalSeconds();
+      for (long s = local - 3 * 3600; s < local + 3 * 3600; s += 60) {
+        assertSameAsZonedDateTime(zone, table, s);
+      }
+      transition = zone.getRules().nextTransition(transition.getInstant());
+    }
+    for (long s = NOW - 3 * 365 * 86400L; s < NOW + 3 * 365 * 86400L; s += 3607) {
+      assertSameAsZonedDateTime(zone, table, s);
+    }
+  }
+
+  private void assertSameAsZonedDateTime(ZoneId zone, ZoneOffsetTable table, long localSecond) {
+    LocalDateTime local = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+    assertEquals(local + " in " + zone, ZonedDateTime.of(local, zone).toEpochSecond(),
+        table.toEpochSecond(localSecond));
+  }
+
+  @Test
+  public void matchesZonedDateTimeInGapsAndOverlaps() {
+    assertSameAsZonedDateTime("Europe/Paris");
+    assertSameAsZonedDateTime("America/New_York");
+    assertSameAsZonedDateTime("Australia/Lord_Howe");
+    assertSameAsZonedDateTime("America/Caracas");
+  }
+
+  @Test
+  public void handlesFixedOffsets() {
+    assertSameAsZonedDateTime("UTC");
+    assertSameAsZonedDateTime("Asia/Kolkata");
+    assertSameAsZonedDateTime("+05:45");
+  }
+}